@@ -0,0 +1,47 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import study.querydsl.entity.Member;
+
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * QuerydslJoinTest의 fetch join 유무 비교
+ * lazy 로딩은 default_batch_fetch_size 설정에 따라 팀을 IN 쿼리로 나눠서 가져온다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FetchJoinBenchmark {
+
+    private static final int AGE = 7;
+
+    @Benchmark
+    public void lazyLoading(SeededDatabase db, Blackhole bh) {
+        db.tx.executeWithoutResult(status -> {
+            for (Member findMember : db.queryFactory
+                    .selectFrom(member)
+                    .where(member.age.eq(AGE))
+                    .fetch()) {
+                bh.consume(findMember.getTeam().getName());
+            }
+        });
+    }
+
+    @Benchmark
+    public void fetchJoin(SeededDatabase db, Blackhole bh) {
+        db.tx.executeWithoutResult(status -> {
+            for (Member findMember : db.queryFactory
+                    .selectFrom(member)
+                    .join(member.team, team).fetchJoin()
+                    .where(member.age.eq(AGE))
+                    .fetch()) {
+                bh.consume(findMember.getTeam().getName());
+            }
+        });
+    }
+}
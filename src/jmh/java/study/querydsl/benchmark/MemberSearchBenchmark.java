@@ -0,0 +1,47 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import study.querydsl.Repository.MemberJpaRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * searchByBuilder / searchByExpression / searchByTemplate 비교
+ * 매 호출마다 BooleanBuilder, 표현식 트리, JPQL 문자열을 새로 만드는 비용과 미리 만든 템플릿 재사용 비용을 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberSearchBenchmark {
+
+    private MemberJpaRepository memberJpaRepository;
+    private MemberSearchCondition condition;
+
+    @Setup
+    public void setup(SeededDatabase db) {
+        memberJpaRepository = db.getBean(MemberJpaRepository.class);
+        condition = new MemberSearchCondition();
+        condition.setUsername("member35");
+        condition.setTeamName("team5");
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(40);
+    }
+
+    @Benchmark
+    public List<MemberTeamDTO> searchByBuilder(SeededDatabase db) {
+        return db.tx.execute(status -> memberJpaRepository.searchByBuilder(condition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDTO> searchByExpression(SeededDatabase db) {
+        return db.tx.execute(status -> memberJpaRepository.searchByExpression(condition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDTO> searchByTemplate(SeededDatabase db) {
+        return db.tx.execute(status -> memberJpaRepository.searchByTemplate(condition));
+    }
+}
@@ -0,0 +1,46 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import study.querydsl.Repository.MemberJpaRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemberTeamDTO 프로젝션 방식별 행당 할당량 비교 (-prof gc 의 gc.alloc.rate.norm / 결과 행 수)
+ * QMemberTeamDTO(리플렉션) vs 직접 생성 FactoryExpression vs JDBC RowMapper
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberTeamProjectionBenchmark {
+
+    private MemberJpaRepository memberJpaRepository;
+    private MemberSearchCondition condition;
+
+    @Setup
+    public void setup(SeededDatabase db) {
+        memberJpaRepository = db.getBean(MemberJpaRepository.class);
+        //scale의 1%
+        condition = new MemberSearchCondition();
+        condition.setAgeGoe(7);
+        condition.setAgeLoe(7);
+    }
+
+    @Benchmark
+    public List<MemberTeamDTO> queryProjection(SeededDatabase db) {
+        return db.tx.execute(status -> memberJpaRepository.searchByExpression(condition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDTO> directProjection(SeededDatabase db) {
+        return db.tx.execute(status -> memberJpaRepository.searchByDirectProjection(condition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDTO> jdbcRowMapper(SeededDatabase db) {
+        return db.tx.execute(status -> memberJpaRepository.searchByJdbc(condition));
+    }
+}
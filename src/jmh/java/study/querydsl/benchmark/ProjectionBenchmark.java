@@ -0,0 +1,65 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.*;
+import study.querydsl.dto.MemberDTO;
+import study.querydsl.dto.QMemberDTO;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * QuerydslProjectionTest의 dto 조회 방식 비교 (setter, field, 생성자, @QueryProjection)
+ * 행 수에 비례하는 비용을 보기 위해 age 조건으로 결과를 scale의 1% 로 제한한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProjectionBenchmark {
+
+    private static final int AGE = 7;
+
+    @Benchmark
+    public List<MemberDTO> bean(SeededDatabase db) {
+        return db.tx.execute(status -> db.queryFactory
+                .select(Projections.bean(MemberDTO.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .where(member.age.eq(AGE))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDTO> fields(SeededDatabase db) {
+        return db.tx.execute(status -> db.queryFactory
+                .select(Projections.fields(MemberDTO.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .where(member.age.eq(AGE))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDTO> constructor(SeededDatabase db) {
+        return db.tx.execute(status -> db.queryFactory
+                .select(Projections.constructor(MemberDTO.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .where(member.age.eq(AGE))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDTO> queryProjection(SeededDatabase db) {
+        return db.tx.execute(status -> db.queryFactory
+                .select(new QMemberDTO(member.username, member.age))
+                .from(member)
+                .where(member.age.eq(AGE))
+                .fetch());
+    }
+}
@@ -0,0 +1,63 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import study.querydsl.Repository.MemberJpaRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 쓰기 트랜잭션 안에서 엔티티 조회 비교 (managed / readOnly 힌트 / StatelessSession)
+ * managed는 커밋 시 모든 엔티티를 스냅샷과 비교하므로 gc 프로파일러의 alloc.rate.norm 차이를 같이 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadOnlyQueryBenchmark {
+
+    private static final int AGE = 7;
+
+    MemberJpaRepository memberJpaRepository;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setup(SeededDatabase db) {
+        memberJpaRepository = db.getBean(MemberJpaRepository.class);
+        condition = new MemberSearchCondition();
+        condition.setAgeGoe(AGE);
+        condition.setAgeLoe(AGE);
+    }
+
+    @Benchmark
+    public void managed(SeededDatabase db, Blackhole bh) {
+        db.tx.executeWithoutResult(status -> {
+            for (Member findMember : db.queryFactory
+                    .selectFrom(member)
+                    .leftJoin(member.team, team).fetchJoin()
+                    .where(member.age.eq(AGE))
+                    .fetch()) {
+                bh.consume(findMember.getTeam().getName());
+            }
+        });
+    }
+
+    @Benchmark
+    public void readOnly(SeededDatabase db, Blackhole bh) {
+        db.tx.executeWithoutResult(status -> {
+            for (Member findMember : memberJpaRepository.findByExpressionReadOnly(condition)) {
+                bh.consume(findMember.getTeam().getName());
+            }
+        });
+    }
+
+    @Benchmark
+    public void stateless(SeededDatabase db, Blackhole bh) {
+        db.tx.executeWithoutResult(status ->
+                memberJpaRepository.streamStateless(condition, findMember -> bh.consume(findMember.getTeam().getName())));
+    }
+}
@@ -0,0 +1,74 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 플랫폼 스레드(기본, open-in-view) vs virtual 프로필 부하 테스트
+ * 64개 클라이언트 스레드가 동시에 /v1/members, /v2/members 를 호출한다.
+ * virtual thread는 JDK 21 이상에서 실행해야 실제로 적용된다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(64)
+public class RequestThreadingBenchmark {
+
+    @Param({"default", "virtual"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI searchUri;
+    private URI cursorUri;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("local", mode)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:load" + mode + ";DB_CLOSE_DELAY=-1",
+                        "querydsl.search-cache.ttl-millis=0",
+                        "logging.level.org.hibernate.SQL=warn",
+                        "decorator.datasource.p6spy.enable-logging=false")
+                .run();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newHttpClient();
+        searchUri = URI.create("http://localhost:" + port + "/v1/members?teamName=teamA&ageGoe=10");
+        cursorUri = URI.create("http://localhost:" + port + "/v2/members?sort=AGE&size=20");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int searchMembers() throws IOException, InterruptedException {
+        return get(searchUri);
+    }
+
+    @Benchmark
+    public int cursorMembers() throws IOException, InterruptedException {
+        return get(cursorUri);
+    }
+
+    private int get(URI uri) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).build(),
+                HttpResponse.BodyHandlers.discarding());
+        return response.statusCode();
+    }
+}
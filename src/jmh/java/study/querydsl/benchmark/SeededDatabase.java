@@ -0,0 +1,82 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 벤치마크 공용 상태, scale 만큼 회원이 들어있는 embedded H2로 애플리케이션 컨텍스트를 띄운다.
+ * 특정 scale만 측정하려면 -p scale=1000 처럼 지정한다.
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+
+    private static final int TEAM_COUNT = 10;
+    private static final int FLUSH_SIZE = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int scale;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+    TransactionTemplate tx;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = start("bench" + scale);
+        em = context.getBean(EntityManager.class);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        tx = context.getBean(TransactionTemplate.class);
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //SQL 로그 없이 in-memory H2로 애플리케이션 컨텍스트를 띄운다.
+    static ConfigurableApplicationContext start(String databaseName) {
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+                        "logging.level.org.hibernate.SQL=warn",
+                        "decorator.datasource.p6spy.enable-logging=false")
+                .run();
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    private void seed() {
+        tx.executeWithoutResult(status -> {
+            Team[] teams = new Team[TEAM_COUNT];
+            for (int i = 0; i < TEAM_COUNT; i++) {
+                teams[i] = new Team("team" + i);
+                em.persist(teams[i]);
+            }
+            for (int i = 0; i < scale; i++) {
+                em.persist(new Member("member" + i, i % 100, teams[i % TEAM_COUNT]));
+                if ((i + 1) % FLUSH_SIZE == 0) {
+                    em.flush();
+                    em.clear();
+                    //clear 후에는 팀을 다시 영속 상태로 가져온다.
+                    for (int t = 0; t < TEAM_COUNT; t++) {
+                        teams[t] = em.find(Team.class, teams[t].getId());
+                    }
+                }
+            }
+        });
+    }
+}
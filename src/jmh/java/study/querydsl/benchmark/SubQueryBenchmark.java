@@ -0,0 +1,82 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import study.querydsl.config.SubQueryOptimizer;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * QuerydslFunctionTest의 서브쿼리 원본과 SubQueryOptimizer 적용 결과 비교
+ * optimized는 스칼라 서브쿼리 선실행 시간까지 포함한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SubQueryBenchmark {
+
+    private static final QMember memberSub = new QMember("memberSub");
+
+    SubQueryOptimizer subQueryOptimizer;
+
+    @Setup(Level.Trial)
+    public void setup(SeededDatabase db) {
+        subQueryOptimizer = db.getBean(SubQueryOptimizer.class);
+    }
+
+    @Benchmark
+    public void nearMaxAge(SeededDatabase db, Blackhole bh) {
+        db.tx.executeWithoutResult(status -> {
+            bh.consume(nearMaxAgeQuery(db).fetch().size());
+            db.em.clear();
+        });
+    }
+
+    @Benchmark
+    public void nearMaxAgeOptimized(SeededDatabase db, Blackhole bh) {
+        db.tx.executeWithoutResult(status -> {
+            bh.consume(subQueryOptimizer.optimize(nearMaxAgeQuery(db)).fetch().size());
+            db.em.clear();
+        });
+    }
+
+    @Benchmark
+    public void ageIn(SeededDatabase db, Blackhole bh) {
+        db.tx.executeWithoutResult(status -> {
+            bh.consume(ageInQuery(db).fetch().size());
+            db.em.clear();
+        });
+    }
+
+    @Benchmark
+    public void ageInOptimized(SeededDatabase db, Blackhole bh) {
+        db.tx.executeWithoutResult(status -> {
+            bh.consume(subQueryOptimizer.optimize(ageInQuery(db)).fetch().size());
+            db.em.clear();
+        });
+    }
+
+    //greaterThanAvg와 같은 형태, 결과 행 수를 줄이기 위해 avg 대신 max 근처만 조회
+    private JPAQuery<Member> nearMaxAgeQuery(SeededDatabase db) {
+        return db.queryFactory
+                .selectFrom(member)
+                .where(member.age.goe(
+                        select(memberSub.age.max().subtract(2))
+                                .from(memberSub)));
+    }
+
+    private JPAQuery<Member> ageInQuery(SeededDatabase db) {
+        return db.queryFactory
+                .selectFrom(member)
+                .where(member.age.in(
+                        select(memberSub.age)
+                                .from(memberSub)
+                                .where(memberSub.age.gt(97))));
+    }
+}
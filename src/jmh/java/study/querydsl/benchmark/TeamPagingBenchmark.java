@@ -0,0 +1,101 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.Repository.TeamJpaRepository;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * team.members 컬렉션 페이징 비교
+ * - inMemory : fetch join + offset/limit, hibernate가 전체 join 결과를 읽고 메모리에서 자른다.
+ * - twoPhase : TeamJpaRepository.findPageWithMembers, id 페이징 후 IN 쿼리
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TeamPagingBenchmark {
+
+    private static final int MEMBERS_PER_TEAM = 2;
+    private static final int FLUSH_SIZE = 1000;
+
+    @Param({"100000"})
+    public int teams;
+
+    @Param({"0", "2500"})
+    public int page;
+
+    @Param({"20"})
+    public int size;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+    TransactionTemplate tx;
+    TeamJpaRepository teamJpaRepository;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = SeededDatabase.start("teams" + teams);
+        em = context.getBean(EntityManager.class);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        tx = context.getBean(TransactionTemplate.class);
+        teamJpaRepository = context.getBean(TeamJpaRepository.class);
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < teams; i++) {
+                Team newTeam = new Team(String.format("team%06d", i));
+                em.persist(newTeam);
+                for (int m = 0; m < MEMBERS_PER_TEAM; m++) {
+                    Member newMember = new Member("member" + i + "_" + m, m);
+                    newMember.setTeam(newTeam);
+                    em.persist(newMember);
+                }
+                if ((i + 1) % FLUSH_SIZE == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void inMemory(Blackhole bh) {
+        tx.executeWithoutResult(status -> {
+            for (Team findTeam : queryFactory
+                    .selectFrom(team)
+                    .distinct()
+                    .leftJoin(team.members).fetchJoin()
+                    .orderBy(team.name.asc(), team.id.asc())
+                    .offset((long) page * size)
+                    .limit(size)
+                    .fetch()) {
+                bh.consume(findTeam.getMembers().size());
+            }
+            em.clear();
+        });
+    }
+
+    @Benchmark
+    public void twoPhase(Blackhole bh) {
+        tx.executeWithoutResult(status -> {
+            for (Team findTeam : teamJpaRepository.findPageWithMembers(null, PageRequest.of(page, size))) {
+                bh.consume(findTeam.getMembers().size());
+            }
+            em.clear();
+        });
+    }
+}
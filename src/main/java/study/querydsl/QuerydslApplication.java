@@ -1,12 +1,17 @@
 package study.querydsl;
 
-import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import study.querydsl.config.InstrumentedJPAQueryFactory;
+import study.querydsl.config.QueryMetrics;
+import study.querydsl.entity.listener.AuditClock;
 
 import javax.persistence.EntityManager;
 
+@EnableScheduling
 @SpringBootApplication
 public class QuerydslApplication {
 
@@ -15,7 +20,8 @@ public class QuerydslApplication {
 	}
 
 	@Bean
-	JPAQueryFactory jpaQueryFactory (EntityManager em){
-		return new JPAQueryFactory(em);
+	InstrumentedJPAQueryFactory jpaQueryFactory (EntityManager em, ApplicationEventPublisher publisher, QueryMetrics queryMetrics,
+									  AuditClock auditClock){
+		return new InstrumentedJPAQueryFactory(em, publisher, queryMetrics, auditClock);
 	}
 }
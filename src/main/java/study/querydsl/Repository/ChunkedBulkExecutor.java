@@ -0,0 +1,142 @@
+package study.querydsl.Repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 벌크 update/delete를 id 구간 단위로 나눠서 실행한다.
+ * 한 번의 큰 update는 넓은 범위에 lock을 오래 잡고 undo 로그를 키우므로
+ * 구간마다 별도 트랜잭션으로 커밋하고, parallelism > 1 이면 제한된 스레드 풀에서 동시에 실행한다.
+ *
+ * 쓰기 트랜잭션 안에서는 실행할 수 없다. 벌크 연산은 영속성 컨텍스트를 거치지 않으므로
+ * 실행 후(일부 청크가 실패해도) 호출자의 영속성 컨텍스트를 비워서 다시 조회하게 한다.
+ */
+@Slf4j
+@Component
+public class ChunkedBulkExecutor {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTx;
+    private final int maxParallelism;
+
+    public ChunkedBulkExecutor(EntityManager em, JPAQueryFactory queryFactory,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${querydsl.bulk.max-parallelism:4}") int maxParallelism) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxParallelism = maxParallelism;
+    }
+
+    public long update(EntityPath<?> entity, NumberPath<Long> id, Predicate predicate,
+                       Consumer<JPAUpdateClause> setter, long chunkSize, int parallelism) {
+        return execute(entity, id, predicate, chunkSize, parallelism, (lo, hi) -> {
+            JPAUpdateClause clause = queryFactory.update(entity);
+            setter.accept(clause);
+            return clause.where(predicate, id.between(lo, hi)).execute();
+        });
+    }
+
+    public long delete(EntityPath<?> entity, NumberPath<Long> id, Predicate predicate,
+                       long chunkSize, int parallelism) {
+        return execute(entity, id, predicate, chunkSize, parallelism,
+                (lo, hi) -> queryFactory.delete(entity).where(predicate, id.between(lo, hi)).execute());
+    }
+
+    private long execute(EntityPath<?> entity, NumberPath<Long> id, Predicate predicate,
+                         long chunkSize, int parallelism, ChunkStatement statement) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        //청크는 별도 트랜잭션으로 커밋되므로 호출자의 쓰기 트랜잭션과 같은 행을 두고 lock을 기다리거나 변경이 섞인다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            throw new IllegalStateException("chunked bulk execution must not run inside a write transaction");
+        }
+        Tuple range = queryFactory
+                .select(id.min(), id.max())
+                .from(entity)
+                .where(predicate)
+                .fetchOne();
+        Long minId = range == null ? null : range.get(id.min());
+        Long maxId = range == null ? null : range.get(id.max());
+        if (minId == null || maxId == null) {
+            return 0;
+        }
+
+        long chunks = (maxId - minId) / chunkSize + 1;
+        int threads = (int) Math.max(1, Math.min(Math.min(parallelism, maxParallelism), chunks));
+        AtomicLong done = new AtomicLong();
+        AtomicLong affected = new AtomicLong();
+        long start = System.nanoTime();
+
+        //구간은 필요할 때 하나씩 만들고, 동시에 실행 중인 청크는 threads 개를 넘지 않는다.
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CompletionService<Void> completion = new ExecutorCompletionService<>(pool);
+        try {
+            long next = minId;
+            boolean more = true;
+            int inFlight = 0;
+            while (more || inFlight > 0) {
+                while (more && inFlight < threads) {
+                    long from = next;
+                    long to = from > maxId - (chunkSize - 1) ? maxId : from + chunkSize - 1;
+                    more = to < maxId;
+                    next = to + 1;
+                    completion.submit(() -> {
+                        Long rows = chunkTx.execute(status -> statement.execute(from, to));
+                        long total = affected.addAndGet(rows == null ? 0 : rows);
+                        logProgress(entity, done.incrementAndGet(), chunks, total, start);
+                        return null;
+                    });
+                    inFlight++;
+                }
+                completion.take().get();
+                inFlight--;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("bulk execution interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("bulk chunk failed, committed chunks are not rolled back", e.getCause());
+        } finally {
+            pool.shutdownNow();
+            //쓰기 트랜잭션은 거부했으므로 버릴 변경은 없다. 읽기 전용 트랜잭션이나 OSIV로 묶인 컨텍스트의 엔티티만 비운다.
+            em.clear();
+        }
+        return affected.get();
+    }
+
+    private void logProgress(EntityPath<?> entity, long done, long chunks, long affected, long start) {
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1_000_000_000.0;
+        log.info("bulk {} chunk {}/{} rows={} ({} rows/sec)",
+                entity, done, chunks, affected, Math.round(affected / seconds));
+    }
+
+    @FunctionalInterface
+    private interface ChunkStatement {
+        long execute(long fromId, long toId);
+    }
+}
@@ -0,0 +1,116 @@
+package study.querydsl.Repository;
+
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 컬렉션(@OneToMany) fetch join 페이징
+ * 컬렉션을 fetch join 하면서 offset/limit을 주면 hibernate가 전체 결과를 읽어서 메모리에서 페이징한다. (HHH000104)
+ * 1단계에서 root id만 DB에서 페이징하고, 2단계에서 그 id들만 컬렉션과 함께 IN 쿼리 한 번으로 가져와서 1단계 순서로 정렬한다.
+ * where와 orders, pageable의 Sort는 root 엔티티의 속성만 사용해야 한다. Sort가 orders보다 먼저 적용된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class CollectionFetchPager {
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManagerFactory emf;
+
+    public <T> Page<T> page(EntityPath<T> root, NumberPath<Long> id, CollectionExpression<?, ?> collection,
+                            Predicate where, Pageable pageable, OrderSpecifier<?>... orders) {
+        //pageable 정렬이 우선, id를 마지막 정렬 기준으로 추가해서 페이지 경계가 흔들리지 않도록
+        List<OrderSpecifier<?>> orderBy = sortOrders(root, pageable.getSort());
+        orderBy.addAll(Arrays.asList(orders));
+        orderBy.add(id.asc());
+
+        List<Long> ids = queryFactory
+                .select(id)
+                .from(root)
+                .where(where)
+                .orderBy(orderBy.toArray(new OrderSpecifier[0]))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        List<T> content = ids.isEmpty() ? Collections.emptyList() : fetchWithCollection(root, id, collection, ids);
+        return PageableExecutionUtils.getPage(content, pageable, () -> queryFactory
+                .select(id.count())
+                .from(root)
+                .where(where)
+                .fetchOne());
+    }
+
+    //Sort 속성은 root 엔티티의 단일 값 속성이어야 한다. (컬렉션/연관 엔티티 경로는 1단계 id 페이징을 깨뜨린다.)
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private List<OrderSpecifier<?>> sortOrders(EntityPath<?> root, Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        if (sort.isUnsorted()) {
+            return orders;
+        }
+        EntityType<?> entityType = emf.getMetamodel().entity(root.getType());
+        PathBuilder<?> path = new PathBuilder<>(root.getType(), root.getMetadata());
+        for (Sort.Order order : sort) {
+            Attribute<?, ?> attribute;
+            try {
+                attribute = entityType.getSingularAttribute(order.getProperty());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unsupported sort property: " + order.getProperty(), e);
+            }
+            if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+                throw new IllegalArgumentException("unsupported sort property: " + order.getProperty());
+            }
+            orders.add(new OrderSpecifier(order.isAscending() ? Order.ASC : Order.DESC,
+                    path.getComparable(order.getProperty(), (Class) attribute.getJavaType())));
+        }
+        return orders;
+    }
+
+    private <T> List<T> fetchWithCollection(EntityPath<T> root, NumberPath<Long> id,
+                                            CollectionExpression<?, ?> collection, List<Long> ids) {
+        //distinct는 root 중복 제거용, SQL에는 필요 없다.
+        List<T> rows = queryFactory
+                .selectFrom(root)
+                .distinct()
+                .leftJoin(collection).fetchJoin()
+                .where(id.in(ids))
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .fetch();
+
+        PersistenceUnitUtil util = emf.getPersistenceUnitUtil();
+        Map<Object, T> byId = new HashMap<>(rows.size() * 2);
+        for (T row : rows) {
+            byId.put(util.getIdentifier(row), row);
+        }
+        //1단계 순서 유지, 그 사이 삭제된 행은 빠진다.
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
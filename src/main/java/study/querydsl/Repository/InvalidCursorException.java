@@ -0,0 +1,17 @@
+package study.querydsl.Repository;
+
+/**
+ * 해석할 수 없거나 다른 정렬로 발급된 cursor, 클라이언트 오류로 처리한다.
+ * IllegalArgumentException이 아니므로 @Repository 예외 변환 대상이 아니다.
+ * 메시지에는 토큰이나 쿼리 내용을 넣지 않는다.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
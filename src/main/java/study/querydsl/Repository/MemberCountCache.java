@@ -0,0 +1,74 @@
+package study.querydsl.Repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.listener.AfterCommitOnce;
+import study.querydsl.entity.listener.EntityChangedEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 count 쿼리 결과를 정규화된 검색 조건 기준으로 짧게 캐시한다.
+ * ttl이 0이면 캐시하지 않고 매번 count 쿼리를 실행한다.
+ */
+@Component
+public class MemberCountCache {
+
+    private final long ttlMillis;
+    private final int maxSize;
+    private final Map<MemberSearchCondition, Entry> entries = new ConcurrentHashMap<>();
+
+    public MemberCountCache(@Value("${querydsl.count-cache.ttl-millis:0}") long ttlMillis,
+                            @Value("${querydsl.count-cache.max-size:1000}") int maxSize) {
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+    }
+
+    public long get(MemberSearchCondition condition, LongSupplier countQuery) {
+        if (ttlMillis <= 0) {
+            return countQuery.getAsLong();
+        }
+        MemberSearchCondition key = condition.normalized();
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            return entry.count;
+        }
+        long count = countQuery.getAsLong();
+        if (entries.size() >= maxSize) {
+            entries.values().removeIf(e -> e.expiresAt <= now);
+        }
+        if (entries.size() < maxSize) {
+            entries.put(key, new Entry(count, now + ttlMillis));
+        }
+        return count;
+    }
+
+    //count가 바뀔 수 있는 변경만 반영 (벌크 연산 포함), 트랜잭션당 한 번 커밋 후 비운다.
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getEntityType() == Member.class || event.getEntityType() == Team.class) {
+            AfterCommitOnce.register(this, this::clear);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private static class Entry {
+        private final long count;
+        private final long expiresAt;
+
+        private Entry(long count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package study.querydsl.Repository;
+
+import study.querydsl.dto.MemberSortKey;
+import study.querydsl.dto.MemberTeamDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * keyset 페이징 커서
+ * 정렬 기준, 마지막 행의 정렬 값, 마지막 행의 id를 base64url 토큰으로 인코딩한다.
+ */
+class MemberCursor {
+
+    private static final String DELIMITER = "|";
+
+    private final MemberSortKey sortKey;
+    private final long lastId;
+    //AGE -> Integer, USERNAME -> String(nullable), ID -> null
+    private final Object lastValue;
+
+    MemberCursor(MemberSortKey sortKey, long lastId, Object lastValue) {
+        this.sortKey = sortKey;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+    static MemberCursor of(MemberSortKey sortKey, MemberTeamDTO last) {
+        Object value = null;
+        if (sortKey == MemberSortKey.AGE) {
+            value = last.getAge();
+        } else if (sortKey == MemberSortKey.USERNAME) {
+            value = last.getUsername();
+        }
+        return new MemberCursor(sortKey, last.getMemberId(), value);
+    }
+
+    String encode() {
+        //null 값과 빈 문자열을 구분하기 위해 N/V 접두어 사용
+        String value = lastValue == null ? "N" : "V" + lastValue;
+        String raw = sortKey.name() + DELIMITER + lastId + DELIMITER + value;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static MemberCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            MemberSortKey sortKey = MemberSortKey.valueOf(parts[0]);
+            long lastId = Long.parseLong(parts[1]);
+            Object value = null;
+            if (parts[2].startsWith("V")) {
+                String text = parts[2].substring(1);
+                value = sortKey == MemberSortKey.AGE ? Integer.valueOf(text) : text;
+            }
+            //age는 not null 컬럼이라 AGE 커서에 null 값이 올 수 없다.
+            if (sortKey == MemberSortKey.AGE && value == null) {
+                throw new InvalidCursorException("invalid cursor");
+            }
+            return new MemberCursor(sortKey, lastId, value);
+        } catch (InvalidCursorException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("invalid cursor", e);
+        }
+    }
+
+    MemberSortKey getSortKey() {
+        return sortKey;
+    }
+
+    long getLastId() {
+        return lastId;
+    }
+
+    Object getLastValue() {
+        return lastValue;
+    }
+}
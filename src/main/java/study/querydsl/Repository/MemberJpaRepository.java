@@ -1,30 +1,64 @@
 package study.querydsl.Repository;
 
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.FlushMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberFetchPlan;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSlice;
+import study.querydsl.dto.MemberSortKey;
 import study.querydsl.dto.MemberTeamDTO;
 import study.querydsl.dto.QMemberTeamDTO;
+import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
 import study.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+//조회 전용, dto로 변환해서 반환하므로 open-in-view 없이도 lazy 로딩이 밖으로 나가지 않는다.
 @Repository
 @RequiredArgsConstructor
-public class MemberJpaRepository {
+@Transactional(readOnly = true)
+public class MemberJpaRepository implements MemberRepositoryCustom {
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberCountCache memberCountCache;
 
     //builder
     public List<MemberTeamDTO> searchByBuilder(MemberSearchCondition condition){
@@ -74,19 +108,291 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
+    //shape별로 미리 만들어 둔 JPQL에 값만 바인딩
+    public List<MemberTeamDTO> searchByTemplate(MemberSearchCondition condition){
+        return MemberSearchTemplate.of(condition)
+                .bind(em, condition)
+                .getResultList();
+    }
+
+    //리플렉션 없는 프로젝션, 결과는 searchByExpression과 같다.
+    public List<MemberTeamDTO> searchByDirectProjection(MemberSearchCondition condition){
+        return queryFactory
+                .select(MemberTeamDTOProjection.INSTANCE)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(searchCondition(condition))
+                .fetch();
+    }
+
+    //JDBC ResultSet에서 바로 dto 생성, 엔티티/Object[] 행을 거치지 않는다.
+    public List<MemberTeamDTO> searchByJdbc(MemberSearchCondition condition){
+        MemberSearchTemplate template = MemberSearchTemplate.of(condition);
+        return jdbcTemplate.query(template.getSql(), MemberTeamDTOProjection.ROW_MAPPER, template.args(condition));
+    }
+
+    //대량 export 용도, 전체 결과를 메모리에 올리지 않고 cursor로 한 건씩 consumer에 전달한다.
+    public long streamByExpression(MemberSearchCondition condition, Consumer<MemberTeamDTO> consumer){
+        long count = 0;
+        try (Stream<MemberTeamDTO> stream = selectMemberTeam()
+                .where(searchCondition(condition))
+                .setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .stream()) {
+            Iterator<MemberTeamDTO> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    //엔티티 조회, 호출자 트랜잭션이 쓰기여도 스냅샷(dirty checking)을 남기지 않고 조회 전 flush도 하지 않는다.
+    //flush 하지 않으므로 같은 트랜잭션에서 아직 flush되지 않은 변경은 결과에 보이지 않는다.
+    public List<Member> findByExpressionReadOnly(MemberSearchCondition condition){
+        return queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(searchCondition(condition))
+                .setHint(QueryHints.HINT_READONLY, true)
+                .setHint(QueryHints.HINT_FLUSH_MODE, FlushMode.MANUAL)
+                .fetch();
+    }
+
+    //엔티티 조회, 연관관계 로딩 범위를 호출마다 fetch plan으로 정한다.
+    public List<Member> findByExpression(MemberSearchCondition condition, MemberFetchPlan plan){
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team);
+        if(plan != MemberFetchPlan.MEMBER_ONLY){
+            query.fetchJoin();
+        }
+        List<Member> members = query
+                .where(searchCondition(condition))
+                .fetch();
+        if(plan == MemberFetchPlan.TEAM_MEMBERS){
+            fetchTeamMembers(members);
+        }
+        return members;
+    }
+
+    //대량 엔티티 조회, StatelessSession은 1차 캐시/스냅샷/lazy 로딩이 없어서 메모리가 결과 크기와 무관하다.
+    //현재 트랜잭션의 커넥션을 그대로 사용하고, team은 fetch join으로 함께 가져온다.
+    public long streamStateless(MemberSearchCondition condition, Consumer<Member> consumer){
+        Session session = em.unwrap(Session.class);
+        return session.doReturningWork(connection -> {
+            StatelessSession statelessSession = session.getSessionFactory().openStatelessSession(connection);
+            ScrollableResults results = null;
+            try {
+                results = new HibernateQuery<Member>(statelessSession)
+                        .select(member)
+                        .from(member)
+                        .leftJoin(member.team, team).fetchJoin()
+                        .where(searchCondition(condition))
+                        .setFetchSize(STREAM_FETCH_SIZE)
+                        .scroll(ScrollMode.FORWARD_ONLY);
+                long count = 0;
+                while (results.next()) {
+                    consumer.accept((Member) results.get(0));
+                    count++;
+                }
+                return count;
+            } finally {
+                if (results != null) {
+                    results.close();
+                }
+                statelessSession.close();
+            }
+        });
+    }
+
+    //keyset(seek) 페이징, offset 없이 마지막 행 이후부터 size 만큼 조회한다.
+    public MemberSlice searchByCursor(MemberSearchCondition condition, MemberSortKey sortKey, String cursor, int size){
+        MemberCursor after = null;
+        if(hasText(cursor)){
+            after = MemberCursor.decode(cursor);
+            if(after.getSortKey() != sortKey){
+                throw new InvalidCursorException("cursor was issued for another sort");
+            }
+        }
+        //다음 페이지 존재 여부 확인을 위해 한 건 더 조회
+        List<MemberTeamDTO> rows = selectMemberTeam()
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        seekAfter(after))
+                .orderBy(seekOrder(sortKey))
+                .limit(size + 1)
+                .fetch();
+
+        if(rows.size() <= size){
+            return new MemberSlice(rows, null);
+        }
+        List<MemberTeamDTO> content = new ArrayList<>(rows.subList(0, size));
+        String next = MemberCursor.of(sortKey, content.get(size - 1)).encode();
+        return new MemberSlice(content, next);
+    }
+
+    //count 쿼리를 매번 실행
+    @Override
+    public Page<MemberTeamDTO> searchPageSimple(MemberSearchCondition condition, Pageable pageable){
+        List<MemberTeamDTO> content = selectMemberTeam()
+                .where(searchCondition(condition))
+                .orderBy(pageOrder(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+        return new PageImpl<>(content, pageable, countQuery(condition).fetchOne());
+    }
+
+    //content와 count 쿼리 분리, 첫/마지막 페이지가 size보다 작으면 count 생략
+    @Override
+    public Page<MemberTeamDTO> searchPageComplex(MemberSearchCondition condition, Pageable pageable){
+        List<MemberTeamDTO> content = selectMemberTeam()
+                .where(searchCondition(condition))
+                .orderBy(pageOrder(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> memberCountCache.get(condition, () -> countQuery(condition).fetchOne()));
+    }
+
+    //이미 영속 상태인 team들의 members 컬렉션을 한 번에 초기화한다.
+    //member 쿼리에서 컬렉션까지 fetch join하면 member x team.members 만큼 행이 늘어나므로 분리
+    private void fetchTeamMembers(List<Member> members) {
+        List<Team> teams = members.stream()
+                .map(Member::getTeam)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if(teams.isEmpty()){
+            return;
+        }
+        queryFactory
+                .selectFrom(team)
+                .distinct()
+                .leftJoin(team.members).fetchJoin()
+                .where(team.in(teams))
+                .fetch();
+    }
+
+    //count에는 dto projection이 필요없고, team 조건이 없으면 join도 생략한다.
+    private JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        JPAQuery<Long> query = queryFactory
+                .select(member.count())
+                .from(member);
+        if(hasText(condition.getTeamName())){
+            query.leftJoin(member.team, team);
+        }
+        return query.where(searchCondition(condition));
+    }
+
+    private JPAQuery<MemberTeamDTO> selectMemberTeam() {
+        return selectMemberTeam(queryFactory);
+    }
+
+    //MemberReactiveRepository와 같은 프로젝션, join을 쓰기 위해 공유
+    static JPAQuery<MemberTeamDTO> selectMemberTeam(JPAQueryFactory queryFactory) {
+        return queryFactory
+                .select(new QMemberTeamDTO(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team);
+    }
+
+    //MemberReactiveRepository와 같은 조건을 쓰기 위해 공유
+    static Predicate[] searchCondition(MemberSearchCondition condition) {
+        return new Predicate[]{
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())};
+    }
+
+    //offset 페이징은 정렬이 없으면 페이지마다 결과가 달라질 수 있으므로 id를 마지막 기준으로 항상 추가
+    private OrderSpecifier<?>[] pageOrder(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = sortPath(order.getProperty());
+            orders.add(order.isAscending() ? path.asc() : path.desc());
+        }
+        orders.add(member.id.asc());
+        return orders.toArray(new OrderSpecifier[0]);
+    }
+
+    //MemberTeamDTO 속성 이름으로만 정렬할 수 있다.
+    private ComparableExpressionBase<?> sortPath(String property) {
+        switch (property) {
+            case "memberId":
+                return member.id;
+            case "username":
+                return member.username;
+            case "age":
+                return member.age;
+            case "teamId":
+                return team.id;
+            case "teamName":
+                return team.name;
+            default:
+                throw new IllegalArgumentException("unsupported sort property: " + property);
+        }
+    }
+
+    private OrderSpecifier<?>[] seekOrder(MemberSortKey sortKey) {
+        switch (sortKey) {
+            case AGE:
+                return new OrderSpecifier[]{member.age.asc(), member.id.asc()};
+            case USERNAME:
+                return new OrderSpecifier[]{member.username.asc().nullsFirst(), member.id.asc()};
+            default:
+                return new OrderSpecifier[]{member.id.asc()};
+        }
+    }
+
+    private BooleanExpression seekAfter(MemberCursor after) {
+        if(after == null){
+            return null;
+        }
+        long lastId = after.getLastId();
+        switch (after.getSortKey()) {
+            case AGE:
+                int lastAge = (Integer) after.getLastValue();
+                return member.age.gt(lastAge)
+                        .or(member.age.eq(lastAge).and(member.id.gt(lastId)));
+            case USERNAME:
+                String lastUsername = (String) after.getLastValue();
+                //null username은 가장 앞에 정렬된다.
+                if(lastUsername == null){
+                    return member.username.isNull().and(member.id.gt(lastId))
+                            .or(member.username.isNotNull());
+                }
+                return member.username.gt(lastUsername)
+                        .or(member.username.eq(lastUsername).and(member.id.gt(lastId)));
+            default:
+                return member.id.gt(lastId);
+        }
+    }
+
+    private static BooleanExpression ageLoe(Integer ageLoe) {
         return ageLoe != null ? member.age.loe(ageLoe) : null;
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
+    private static BooleanExpression ageGoe(Integer ageGoe) {
         return ageGoe != null ? member.age.goe(ageGoe) : null;
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
+    private static BooleanExpression teamNameEq(String teamName) {
         return hasText(teamName) ? team.name.eq(teamName) : null;
     }
 
-    private BooleanExpression usernameEq(String username) {
+    private static BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
     }
 }
@@ -0,0 +1,66 @@
+package study.querydsl.Repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import study.querydsl.config.InstrumentedJPAQueryFactory;
+import study.querydsl.config.RepositoryMethodAspect;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * searchByExpression의 Flux 버전
+ * 구독마다 별도 EntityManager를 열고 cursor에서 읽은 행을 demand 만큼만 내보낸다.
+ * 스레드에 묶이는 트랜잭션 대신 EntityManager를 직접 관리하므로 어느 jdbc 스레드에서 요청이 와도 된다.
+ * 구독이 취소되면(클라이언트 연결 종료 등) ResultSet/Statement와 EntityManager를 바로 닫는다.
+ */
+@Repository
+public class MemberReactiveRepository {
+
+    private final EntityManagerFactory emf;
+    private final InstrumentedJPAQueryFactory queryFactory;
+    private final Scheduler jdbcScheduler;
+    private final int fetchSize;
+
+    public MemberReactiveRepository(EntityManagerFactory emf,
+                                    InstrumentedJPAQueryFactory queryFactory,
+                                    @Qualifier("jdbcScheduler") Scheduler jdbcScheduler,
+                                    @Value("${querydsl.reactive.fetch-size:256}") int fetchSize) {
+        this.emf = emf;
+        this.queryFactory = queryFactory;
+        this.jdbcScheduler = jdbcScheduler;
+        this.fetchSize = fetchSize;
+    }
+
+    public Flux<MemberTeamDTO> searchByExpression(MemberSearchCondition condition) {
+        //쿼리는 jdbc 스레드에서 실행되므로 메트릭 태그를 조립 시점에 잡아서 넘긴다.
+        String method = RepositoryMethodAspect.currentMethod();
+        return Flux.using(
+                        this::openReadOnly,
+                        em -> Flux.fromStream(() -> RepositoryMethodAspect.callAs(method, () -> query(em, condition).stream())),
+                        EntityManager::close)
+                //하위 demand를 fetch size 단위 요청으로 맞춘다.
+                .limitRate(fetchSize)
+                .subscribeOn(jdbcScheduler);
+    }
+
+    private EntityManager openReadOnly() {
+        EntityManager em = emf.createEntityManager();
+        em.unwrap(Session.class).setDefaultReadOnly(true);
+        return em;
+    }
+
+    private JPAQuery<MemberTeamDTO> query(EntityManager em, MemberSearchCondition condition) {
+        return MemberJpaRepository.selectMemberTeam(queryFactory.withEntityManager(em))
+                .where(MemberJpaRepository.searchCondition(condition))
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize);
+    }
+}
@@ -1,11 +1,11 @@
 package study.querydsl.Repository;
 
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import study.querydsl.entity.Member;
-
-import java.util.List;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
 
 public interface MemberRepositoryCustom {
-    List<Member> searchPageSimple(Pageable pageable);
-    List<Member> searchPageComplex(Pageable pageable);
+    Page<MemberTeamDTO> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
+    Page<MemberTeamDTO> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
 }
@@ -0,0 +1,89 @@
+package study.querydsl.Repository;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hql.internal.ast.ASTQueryTranslatorFactory;
+import org.hibernate.hql.spi.QueryTranslator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MemberSearchCondition shape별 실행 계획 진단
+ * 각 shape의 JPQL을 SQL로 변환해서 EXPLAIN을 실행하고 full scan(H2 tableScan)이 있는 shape를 알려준다.
+ * querydsl.schema-advisor.enabled=true 이면 시작 시 결과를 로그로 남긴다.
+ */
+@Slf4j
+@Component
+public class MemberSearchPlanAdvisor implements ApplicationRunner {
+
+    private static final String FULL_SCAN = "tableScan";
+
+    private final EntityManagerFactory emf;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean runOnStartup;
+
+    public MemberSearchPlanAdvisor(EntityManagerFactory emf, JdbcTemplate jdbcTemplate,
+                                   @Value("${querydsl.schema-advisor.enabled:false}") boolean runOnStartup) {
+        this.emf = emf;
+        this.jdbcTemplate = jdbcTemplate;
+        this.runOnStartup = runOnStartup;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!runOnStartup) {
+            return;
+        }
+        for (PlanReport report : explainAll()) {
+            if (report.isFullScan()) {
+                log.warn("search shape [{}] uses a full scan\n{}", report.getShape(), report.getPlan());
+            } else {
+                log.info("search shape [{}] uses indexes", report.getShape());
+            }
+        }
+    }
+
+    public List<PlanReport> explainAll() {
+        List<PlanReport> reports = new ArrayList<>();
+        for (int shape = 0; shape < MemberSearchTemplate.SHAPE_COUNT; shape++) {
+            MemberSearchTemplate template = MemberSearchTemplate.ofShape(shape);
+            String sql = toSql(template.getJpql());
+            String plan = String.join("\n",
+                    jdbcTemplate.queryForList("explain " + sql, String.class, template.sampleArgs()));
+            reports.add(new PlanReport(template.describe(), sql, plan));
+        }
+        return reports;
+    }
+
+    private String toSql(String jpql) {
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        QueryTranslator translator = new ASTQueryTranslatorFactory()
+                .createQueryTranslator(jpql, jpql, Collections.emptyMap(), sessionFactory, null);
+        translator.compile(Collections.emptyMap(), false);
+        return translator.getSQLString();
+    }
+
+    @Getter
+    public static class PlanReport {
+        private final String shape;
+        private final String sql;
+        private final String plan;
+        private final boolean fullScan;
+
+        PlanReport(String shape, String sql, String plan) {
+            this.shape = shape;
+            this.sql = sql;
+            this.plan = plan;
+            this.fullScan = plan.contains(FULL_SCAN);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package study.querydsl.Repository;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberSearchCondition의 조건 유무 조합(shape)별로 미리 만들어 둔 JPQL
+ * 조건이 4개라 shape는 16개 뿐이므로 전부 미리 만들어 두고 조회 시에는 파라미터 바인딩만 한다.
+ * 같은 JPQL 문자열을 재사용하므로 Hibernate query plan cache도 항상 적중한다.
+ */
+class MemberSearchTemplate {
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    static final int SHAPE_COUNT = 16;
+
+    private static final MemberSearchTemplate[] TEMPLATES = new MemberSearchTemplate[SHAPE_COUNT];
+
+    static {
+        for (int shape = 0; shape < TEMPLATES.length; shape++) {
+            TEMPLATES[shape] = new MemberSearchTemplate(shape);
+        }
+    }
+
+    private final int shape;
+    private final String jpql;
+    private final String sql;
+
+    private MemberSearchTemplate(int shape) {
+        this.shape = shape;
+        this.jpql = buildJpql(shape);
+        this.sql = buildSql(shape);
+    }
+
+    static MemberSearchTemplate ofShape(int shape) {
+        return TEMPLATES[shape];
+    }
+
+    static MemberSearchTemplate of(MemberSearchCondition condition) {
+        return TEMPLATES[shapeOf(condition)];
+    }
+
+    static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    TypedQuery<MemberTeamDTO> bind(EntityManager em, MemberSearchCondition condition) {
+        TypedQuery<MemberTeamDTO> query = em.createQuery(jpql, MemberTeamDTO.class);
+        if ((shape & USERNAME) != 0) {
+            query.setParameter("username", condition.getUsername());
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            query.setParameter("teamName", condition.getTeamName());
+        }
+        if ((shape & AGE_GOE) != 0) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if ((shape & AGE_LOE) != 0) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+        return query;
+    }
+
+    String getJpql() {
+        return jpql;
+    }
+
+    //예: "username+ageGoe", 조건이 없으면 "all"
+    String describe() {
+        StringBuilder sb = new StringBuilder();
+        if ((shape & USERNAME) != 0) {
+            sb.append("+username");
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            sb.append("+teamName");
+        }
+        if ((shape & AGE_GOE) != 0) {
+            sb.append("+ageGoe");
+        }
+        if ((shape & AGE_LOE) != 0) {
+            sb.append("+ageLoe");
+        }
+        return sb.length() == 0 ? "all" : sb.substring(1);
+    }
+
+    //EXPLAIN용 예시 값
+    Object[] sampleArgs() {
+        MemberSearchCondition sample = new MemberSearchCondition();
+        sample.setUsername("member1");
+        sample.setTeamName("teamA");
+        sample.setAgeGoe(10);
+        sample.setAgeLoe(40);
+        return args(sample);
+    }
+
+    //native sql 위치 파라미터 값, 파라미터 등장 순서와 같다.
+    Object[] args(MemberSearchCondition condition) {
+        List<Object> args = new ArrayList<>(4);
+        if ((shape & USERNAME) != 0) {
+            args.add(condition.getUsername());
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            args.add(condition.getTeamName());
+        }
+        if ((shape & AGE_GOE) != 0) {
+            args.add(condition.getAgeGoe());
+        }
+        if ((shape & AGE_LOE) != 0) {
+            args.add(condition.getAgeLoe());
+        }
+        return args.toArray();
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    private static String buildJpql(int shape) {
+        StringBuilder sb = new StringBuilder()
+                .append("select new study.querydsl.dto.MemberTeamDTO(m.id, m.username, m.age, t.id, t.name)")
+                .append(" from Member m left join m.team t");
+        String prefix = " where ";
+        if ((shape & USERNAME) != 0) {
+            sb.append(prefix).append("m.username = :username");
+            prefix = " and ";
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            sb.append(prefix).append("t.name = :teamName");
+            prefix = " and ";
+        }
+        if ((shape & AGE_GOE) != 0) {
+            sb.append(prefix).append("m.age >= :ageGoe");
+            prefix = " and ";
+        }
+        if ((shape & AGE_LOE) != 0) {
+            sb.append(prefix).append("m.age <= :ageLoe");
+        }
+        return sb.toString();
+    }
+
+    private static String buildSql(int shape) {
+        StringBuilder sb = new StringBuilder()
+                .append("select m.member_id, m.username, m.age, t.team_id, t.name")
+                .append(" from member m left outer join team t on m.team_id = t.team_id");
+        String prefix = " where ";
+        if ((shape & USERNAME) != 0) {
+            sb.append(prefix).append("m.username = ?");
+            prefix = " and ";
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            sb.append(prefix).append("t.name = ?");
+            prefix = " and ";
+        }
+        if ((shape & AGE_GOE) != 0) {
+            sb.append(prefix).append("m.age >= ?");
+            prefix = " and ";
+        }
+        if ((shape & AGE_LOE) != 0) {
+            sb.append(prefix).append("m.age <= ?");
+        }
+        return sb.toString();
+    }
+}
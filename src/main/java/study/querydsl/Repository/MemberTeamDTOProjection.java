@@ -0,0 +1,57 @@
+package study.querydsl.Repository;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+import org.springframework.jdbc.core.RowMapper;
+import study.querydsl.dto.MemberTeamDTO;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * QMemberTeamDTO 대신 쓰는 MemberTeamDTO 프로젝션
+ * QMemberTeamDTO(ConstructorExpression)는 생성자를 한 번 찾아 두지만, 행마다 ConstructorUtils로 인자를 맞추고
+ * (varargs/primitive 변환) 리플렉션으로 호출한다. 여기서는 그 과정 없이 생성자를 직접 호출한다.
+ * 두 경우 모두 hibernate가 만든 Object[] 행을 거치므로 차이는 크지 않다.
+ * 중간 Object[] 행 없이 만드는 것은 JDBC ResultSet에서 바로 dto를 만드는 ROW_MAPPER뿐이다.
+ */
+class MemberTeamDTOProjection extends FactoryExpressionBase<MemberTeamDTO> {
+
+    static final MemberTeamDTOProjection INSTANCE = new MemberTeamDTOProjection();
+
+    static final RowMapper<MemberTeamDTO> ROW_MAPPER = MemberTeamDTOProjection::mapRow;
+
+    private final List<Expression<?>> args = List.of(member.id, member.username, member.age, team.id, team.name);
+
+    private MemberTeamDTOProjection() {
+        super(MemberTeamDTO.class);
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    public MemberTeamDTO newInstance(Object... row) {
+        Integer age = (Integer) row[2];
+        return new MemberTeamDTO((Long) row[0], (String) row[1], age == null ? 0 : age, (Long) row[3], (String) row[4]);
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    //select member_id, username, age, team_id, name 순서
+    private static MemberTeamDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
+        long teamId = rs.getLong(4);
+        Long nullableTeamId = rs.wasNull() ? null : teamId;
+        return new MemberTeamDTO(rs.getLong(1), rs.getString(2), rs.getInt(3), nullableTeamId, rs.getString(5));
+    }
+}
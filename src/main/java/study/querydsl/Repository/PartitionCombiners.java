@@ -0,0 +1,95 @@
+package study.querydsl.Repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * PartitionedQueryExecutor의 부분 결과를 합치는 Collector 모음
+ * 평균은 파티션마다 평균을 내면 합칠 수 없으므로 합계와 건수(Avg)를 부분 결과로 사용한다.
+ */
+public final class PartitionCombiners {
+
+    private PartitionCombiners() {
+    }
+
+    //sum, count
+    public static <T extends Number> Collector<T, ?, Long> sum() {
+        return Collectors.summingLong(n -> n == null ? 0 : n.longValue());
+    }
+
+    public static <T extends Comparable<? super T>> Collector<T, ?, T> min() {
+        return Collectors.collectingAndThen(
+                Collectors.filtering(Objects::nonNull, Collectors.minBy(Comparator.<T>naturalOrder())),
+                o -> o.orElse(null));
+    }
+
+    public static <T extends Comparable<? super T>> Collector<T, ?, T> max() {
+        return Collectors.collectingAndThen(
+                Collectors.filtering(Objects::nonNull, Collectors.maxBy(Comparator.<T>naturalOrder())),
+                o -> o.orElse(null));
+    }
+
+    public static Collector<Avg, ?, Double> avg() {
+        return Collectors.collectingAndThen(
+                Collectors.reducing(new Avg(0, 0), Avg::merge),
+                Avg::get);
+    }
+
+    //group by 결과 Map을 키별로 merge
+    public static <K, V> Collector<Map<K, V>, ?, Map<K, V>> groupBy(BinaryOperator<V> merge) {
+        return Collector.of(
+                HashMap::new,
+                (acc, partial) -> partial.forEach((k, v) -> acc.merge(k, v, merge)),
+                (left, right) -> {
+                    right.forEach((k, v) -> left.merge(k, v, merge));
+                    return left;
+                });
+    }
+
+    public static <K> Collector<Map<K, Avg>, ?, Map<K, Double>> groupByAvg() {
+        return Collectors.collectingAndThen(groupBy(Avg::merge), merged -> {
+            Map<K, Double> result = new HashMap<>();
+            merged.forEach((k, v) -> result.put(k, v.get()));
+            return result;
+        });
+    }
+
+    //파티션마다 정렬해서 n개씩 가져온 결과를 다시 정렬해서 n개
+    public static <T> Collector<List<T>, ?, List<T>> topN(int n, Comparator<? super T> comparator) {
+        return Collectors.collectingAndThen(Collectors.toList(), partials -> {
+            List<T> all = new ArrayList<>();
+            partials.forEach(all::addAll);
+            all.sort(comparator);
+            return new ArrayList<>(all.subList(0, Math.min(n, all.size())));
+        });
+    }
+
+    public static class Avg {
+        private final long sum;
+        private final long count;
+
+        public Avg(long sum, long count) {
+            this.sum = sum;
+            this.count = count;
+        }
+
+        public static Avg of(Number sum, Number count) {
+            return new Avg(sum == null ? 0 : sum.longValue(), count == null ? 0 : count.longValue());
+        }
+
+        public Avg merge(Avg other) {
+            return new Avg(sum + other.sum, count + other.count);
+        }
+
+        public Double get() {
+            return count == 0 ? null : (double) sum / count;
+        }
+    }
+}
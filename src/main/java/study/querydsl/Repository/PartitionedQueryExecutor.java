@@ -0,0 +1,110 @@
+package study.querydsl.Repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collector;
+
+/**
+ * 큰 집계 쿼리를 id 구간으로 나눠 동시에 실행하고 결과를 합친다.
+ * 파티션마다 별도 읽기 전용 트랜잭션(= 별도 EntityManager, 커넥션)에서 실행하므로
+ * 호출한 트랜잭션에서 아직 커밋하지 않은 변경은 보이지 않는다.
+ * 파티션 결과는 PartitionCombiners의 Collector로 합친다.
+ * 스레드 풀은 호출마다 파티션 수만큼 만들고 끝나면 정리한다.
+ */
+@Slf4j
+@Component
+public class PartitionedQueryExecutor {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate partitionTx;
+    private final int maxParallelism;
+
+    public PartitionedQueryExecutor(JPAQueryFactory queryFactory,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${querydsl.partition.max-parallelism:4}") int maxParallelism) {
+        this.queryFactory = queryFactory;
+        this.partitionTx = new TransactionTemplate(transactionManager);
+        this.partitionTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.partitionTx.setReadOnly(true);
+        this.maxParallelism = maxParallelism;
+    }
+
+    /**
+     * @param entity    id 구간을 나눌 기준 엔티티 (예: member)
+     * @param id        구간 기준 id (예: member.id)
+     * @param where     전체 쿼리 조건, 구간 계산에도 사용 (null 가능)
+     * @param task      파티션 조건을 받아 부분 결과를 계산하는 쿼리
+     * @param combiner  부분 결과를 합치는 Collector
+     */
+    public <P, R> R execute(EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                            PartitionTask<P> task, Collector<? super P, ?, R> combiner, int parallelism) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            log.debug("partitions run in separate transactions and do not see uncommitted changes");
+        }
+        Tuple range = queryFactory
+                .select(id.min(), id.max())
+                .from(entity)
+                .where(where)
+                .fetchOne();
+        Long minId = range == null ? null : range.get(id.min());
+        Long maxId = range == null ? null : range.get(id.max());
+        List<P> partials = new ArrayList<>();
+        if (minId == null || maxId == null) {
+            return combine(partials, combiner);
+        }
+
+        int partitions = (int) Math.max(1, Math.min(Math.min(parallelism, maxParallelism), maxId - minId + 1));
+        long size = (maxId - minId) / partitions + 1;
+        //호출마다 별도 풀, 중첩 호출이나 동시 호출이 서로의 스레드를 기다리며 막히지 않는다.
+        ExecutorService pool = Executors.newFixedThreadPool(partitions);
+        List<Future<P>> futures = new ArrayList<>(partitions);
+        for (long lo = minId; lo <= maxId; lo += size) {
+            BooleanExpression partition = id.between(lo, Math.min(lo + size - 1, maxId));
+            BooleanExpression condition = where == null ? partition : partition.and(where);
+            futures.add(pool.submit(() -> partitionTx.execute(status -> task.execute(queryFactory, condition))));
+        }
+        try {
+            for (Future<P> future : futures) {
+                partials.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("partitioned query interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("partition query failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return combine(partials, combiner);
+    }
+
+    private <P, R> R combine(List<P> partials, Collector<? super P, ?, R> combiner) {
+        return partials.stream().collect(combiner);
+    }
+
+    @FunctionalInterface
+    public interface PartitionTask<P> {
+        P execute(JPAQueryFactory queryFactory, Predicate partition);
+    }
+}
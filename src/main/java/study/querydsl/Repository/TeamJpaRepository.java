@@ -0,0 +1,38 @@
+package study.querydsl.Repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Team;
+
+import java.util.Optional;
+
+import static study.querydsl.entity.QTeam.team;
+
+@Repository
+@RequiredArgsConstructor
+public class TeamJpaRepository {
+    private final JPAQueryFactory queryFactory;
+    private final CollectionFetchPager collectionFetchPager;
+
+    //query cache 사용, team 테이블이 변경되면 hibernate가 결과를 무효화한다.
+    public Optional<Team> findByName(String name){
+        return Optional.ofNullable(queryFactory
+                .selectFrom(team)
+                .where(team.name.eq(name))
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .setHint(QueryHints.HINT_CACHE_REGION, Team.QUERY_CACHE_REGION)
+                .fetchFirst());
+    }
+
+    //team.members까지 로딩한 페이지, 페이징은 DB에서 team 단위로 한다.
+    @Transactional(readOnly = true)
+    public Page<Team> findPageWithMembers(Predicate where, Pageable pageable){
+        return collectionFetchPager.page(team, team.id, team.members, where, pageable, team.name.asc());
+    }
+}
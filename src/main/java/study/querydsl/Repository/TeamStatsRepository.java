@@ -0,0 +1,43 @@
+package study.querydsl.Repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.TeamStats;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Optional;
+
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+//member를 group by 하지 않고 미리 계산된 team_stats를 pk/이름 인덱스로 조회한다.
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TeamStatsRepository {
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public Optional<TeamStats> findByTeamId(Long teamId){
+        return Optional.ofNullable(em.find(TeamStats.class, teamId));
+    }
+
+    public Optional<TeamStats> findByTeamName(String name){
+        return Optional.ofNullable(queryFactory
+                .select(teamStats)
+                .from(teamStats, team)
+                .where(teamStats.teamId.eq(team.id),
+                        team.name.eq(name))
+                .fetchFirst());
+    }
+
+    public List<TeamStats> findAll(){
+        return queryFactory
+                .selectFrom(teamStats)
+                .orderBy(teamStats.teamId.asc())
+                .fetch();
+    }
+}
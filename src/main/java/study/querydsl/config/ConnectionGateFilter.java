@@ -0,0 +1,91 @@
+package study.querydsl.config;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 동시에 DB를 사용하는 요청 수를 커넥션 풀 크기로 제한한다.
+ * 허가를 timeout 안에 얻지 못하면 커넥션 풀에서 오래 기다리게 두지 않고 바로 503으로 응답한다.
+ * 비동기 요청은 처음 dispatch에서 얻은 허가를 비동기 처리가 끝날 때까지 유지한다. (async dispatch는 다시 거치지 않는다.)
+ */
+public class ConnectionGateFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long timeoutMillis;
+
+    public ConnectionGateFilter(int permits, long timeoutMillis) {
+        this.permits = new Semaphore(permits, true);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "database busy");
+            return;
+        }
+        Permit permit = new Permit();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            //StreamingResponseBody, Flux 응답은 doFilter가 끝난 뒤 다른 스레드에서 DB를 읽으므로 비동기 처리가 끝날 때 반납한다.
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    //complete/error/timeout이 겹쳐 불려도 한 번만 반납한다.
+    private class Permit implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        //비동기가 다시 시작되면 새 AsyncContext에 다시 등록한다.
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
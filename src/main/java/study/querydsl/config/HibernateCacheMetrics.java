@@ -0,0 +1,58 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.function.Function;
+
+/**
+ * 2차 캐시 region별 hit ratio 게이지
+ * hit/miss 카운터는 hibernate-micrometer가 hibernate.second.level.cache.requests로 등록한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class HibernateCacheMetrics implements MeterBinder {
+
+    private static final String METRIC = "hibernate.cache.hit.ratio";
+
+    private final EntityManagerFactory emf;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        register(registry, statistics, Team.CACHE_REGION, s -> s.getDomainDataRegionStatistics(Team.CACHE_REGION));
+        register(registry, statistics, Team.MEMBERS_CACHE_REGION, s -> s.getDomainDataRegionStatistics(Team.MEMBERS_CACHE_REGION));
+        register(registry, statistics, Team.QUERY_CACHE_REGION, s -> s.getQueryRegionStatistics(Team.QUERY_CACHE_REGION));
+    }
+
+    private void register(MeterRegistry registry, Statistics statistics, String region,
+                          Function<Statistics, CacheRegionStatistics> regionStatistics) {
+        Gauge.builder(METRIC, statistics, s -> hitRatio(s, regionStatistics))
+                .tag("region", region)
+                .description("second level cache hit ratio")
+                .register(registry);
+    }
+
+    private double hitRatio(Statistics statistics, Function<Statistics, CacheRegionStatistics> regionStatistics) {
+        CacheRegionStatistics stats;
+        try {
+            stats = regionStatistics.apply(statistics);
+        } catch (IllegalArgumentException e) {
+            //region이 아직 만들어지지 않음
+            return Double.NaN;
+        }
+        if (stats == null) {
+            return Double.NaN;
+        }
+        long requests = stats.getHitCount() + stats.getMissCount();
+        return requests == 0 ? Double.NaN : (double) stats.getHitCount() / requests;
+    }
+}
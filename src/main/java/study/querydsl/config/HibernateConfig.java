@@ -0,0 +1,42 @@
+package study.querydsl.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.service.TeamStatsMaintainer;
+
+import javax.persistence.EntityManagerFactory;
+
+@Configuration
+public class HibernateConfig {
+
+    @Bean
+    HibernatePropertiesCustomizer statementInspectorCustomizer(QueryCounter queryCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, queryCounter);
+    }
+
+    @Bean
+    SmartInitializingSingleton postLoadListenerRegistrar(EntityManagerFactory emf, QueryCounter queryCounter) {
+        return () -> emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, queryCounter);
+    }
+
+    @Bean
+    SmartInitializingSingleton teamStatsListenerRegistrar(EntityManagerFactory emf, TeamStatsMaintainer teamStatsMaintainer) {
+        return () -> {
+            EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry()
+                    .getService(EventListenerRegistry.class);
+            registry.appendListeners(EventType.POST_INSERT, teamStatsMaintainer);
+            registry.appendListeners(EventType.POST_UPDATE, teamStatsMaintainer);
+            registry.appendListeners(EventType.POST_DELETE, teamStatsMaintainer);
+        };
+    }
+}
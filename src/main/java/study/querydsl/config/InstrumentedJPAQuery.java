@@ -0,0 +1,96 @@
+package study.querydsl.config;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+//select/from 등 체이닝 메서드는 this를 반환하므로 최종 fetch 시점까지 이 타입이 유지된다.
+class InstrumentedJPAQuery<T> extends JPAQuery<T> {
+
+    private final QueryMetrics queryMetrics;
+
+    InstrumentedJPAQuery(EntityManager em, QueryMetrics queryMetrics) {
+        super(em);
+        this.queryMetrics = queryMetrics;
+    }
+
+    InstrumentedJPAQuery(EntityManager em, QueryMetrics queryMetrics, QueryMetadata metadata) {
+        super(em, metadata);
+        this.queryMetrics = queryMetrics;
+    }
+
+    //metadata 사본에 hint, lock mode, flush mode까지 원본 쿼리 설정을 그대로 가져온다.
+    InstrumentedJPAQuery(EntityManager em, QueryMetrics queryMetrics, JPAQuery<T> source) {
+        super(em, source.getMetadata().clone());
+        this.queryMetrics = queryMetrics;
+        clone(source);
+    }
+
+    boolean isLocked() {
+        return lockMode != null && lockMode != LockModeType.NONE;
+    }
+
+    @Override
+    public List<T> fetch() {
+        QueryMetrics.Sample sample = queryMetrics.start();
+        List<T> result = null;
+        try {
+            result = super.fetch();
+            return result;
+        } finally {
+            queryMetrics.stop(sample, this, "fetch", result == null ? 0 : result.size());
+        }
+    }
+
+    @Override
+    public T fetchOne() {
+        QueryMetrics.Sample sample = queryMetrics.start();
+        T result = null;
+        try {
+            result = super.fetchOne();
+            return result;
+        } finally {
+            queryMetrics.stop(sample, this, "fetchOne", result == null ? 0 : 1);
+        }
+    }
+
+    //deprecated 이지만 페이징 count에 쓰이는 경로라 함께 기록한다.
+    @Override
+    public long fetchCount() {
+        QueryMetrics.Sample sample = queryMetrics.start();
+        try {
+            return super.fetchCount();
+        } finally {
+            queryMetrics.stop(sample, this, "fetchCount", 1);
+        }
+    }
+
+    //count + content 두 쿼리를 한 번으로 기록한다.
+    @Override
+    public QueryResults<T> fetchResults() {
+        QueryMetrics.Sample sample = queryMetrics.start();
+        QueryResults<T> result = null;
+        try {
+            result = super.fetchResults();
+            return result;
+        } finally {
+            queryMetrics.stop(sample, this, "fetchResults", result == null ? 0 : result.getResults().size());
+        }
+    }
+
+    //스트림은 닫힐 때까지를 한 번의 쿼리로 기록한다.
+    @Override
+    public Stream<T> stream() {
+        QueryMetrics.Sample sample = queryMetrics.start();
+        AtomicLong rows = new AtomicLong();
+        return super.stream()
+                .peek(row -> rows.incrementAndGet())
+                .onClose(() -> queryMetrics.stop(sample, this, "stream", rows.get()));
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydsl.config;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import org.springframework.context.ApplicationEventPublisher;
+import study.querydsl.entity.base.BaseEntity;
+import study.querydsl.entity.base.JpaBaseEntity;
+import study.querydsl.entity.listener.AuditClock;
+import study.querydsl.entity.listener.EntityChangedEvent;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+
+import static study.querydsl.entity.listener.EntityChangedEvent.ChangeType.BULK_DELETE;
+import static study.querydsl.entity.listener.EntityChangedEvent.ChangeType.BULK_UPDATE;
+
+/**
+ * 애플리케이션 공용 JPAQueryFactory
+ * - 조회 쿼리는 QueryMetrics로 실행 시간, 결과 행 수, JDBC 쿼리 수, 엔티티 로딩 수를 기록한다.
+ * - 벌크 update/delete는 엔티티 리스너를 거치지 않으므로
+ *   실행 후 EntityChangedEvent를 발행해서 캐시 등이 변경을 알 수 있게 한다.
+ * - 벌크 update는 BaseEntity/JpaBaseEntity의 수정 시각(작업자)을 AuditClock 값으로 같이 set 한다.
+ *   호출하는 쪽에서 같은 경로를 set 하면 그 값이 우선한다.
+ */
+public class InstrumentedJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+    private final ApplicationEventPublisher publisher;
+    private final QueryMetrics queryMetrics;
+    private final AuditClock auditClock;
+
+    public InstrumentedJPAQueryFactory(EntityManager em, ApplicationEventPublisher publisher,
+                                       QueryMetrics queryMetrics, AuditClock auditClock) {
+        super(em);
+        this.em = em;
+        this.publisher = publisher;
+        this.queryMetrics = queryMetrics;
+        this.auditClock = auditClock;
+    }
+
+    //스레드에 묶인 공유 EntityManager 대신 직접 연 EntityManager로 쿼리할 때, 메트릭/이벤트 설정은 그대로 쓴다.
+    public InstrumentedJPAQueryFactory withEntityManager(EntityManager entityManager) {
+        return new InstrumentedJPAQueryFactory(entityManager, publisher, queryMetrics, auditClock);
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new InstrumentedJPAQuery<Void>(em, queryMetrics);
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        JPAUpdateClause clause = new JPAUpdateClause(em, path) {
+            @Override
+            public long execute() {
+                long count = super.execute();
+                publisher.publishEvent(new EntityChangedEvent(path.getType(), null, BULK_UPDATE));
+                return count;
+            }
+        };
+        stampModified(clause, path);
+        return clause;
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new JPADeleteClause(em, path) {
+            @Override
+            public long execute() {
+                long count = super.execute();
+                publisher.publishEvent(new EntityChangedEvent(path.getType(), null, BULK_DELETE));
+                return count;
+            }
+        };
+    }
+
+    //set은 경로별 Map에 저장되므로 먼저 넣어두면 이후 같은 경로의 set이 덮어쓴다.
+    private void stampModified(JPAUpdateClause clause, EntityPath<?> path) {
+        Class<?> type = path.getType();
+        if (BaseEntity.class.isAssignableFrom(type)) {
+            AuditClock.Stamp stamp = auditClock.current();
+            clause.set(Expressions.dateTimePath(LocalDateTime.class, path, BaseEntity.LAST_MODIFIED_TIME), stamp.getNow());
+            if (stamp.getAuditor() != null) {
+                clause.set(Expressions.stringPath(path, BaseEntity.LAST_MODIFIED_BY), stamp.getAuditor());
+            }
+        } else if (JpaBaseEntity.class.isAssignableFrom(type)) {
+            clause.set(Expressions.dateTimePath(LocalDateTime.class, path, JpaBaseEntity.UPDATED_DATE), auditClock.current().getNow());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 요청 하나에서 실행된 select 수를 기록한다.
+ * open-in-view 상태에서는 json 직렬화 중 lazy 로딩도 같은 요청 스레드에서 일어나므로 함께 집계된다.
+ * 임계치를 넘으면 N+1 의심 요청으로 로그와 카운터를 남긴다.
+ * 카운터가 스레드별이므로 비동기 요청(StreamingResponseBody, Flux 응답 등 /v1/members/export, /v1/members/reactive)은
+ * 쿼리가 다른 스레드에서 실행되어 셀 수 없다. 이 요청들은 기록과 N+1 경고에서 제외한다.
+ */
+@Slf4j
+@Component
+public class QueryCountInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String BEFORE = QueryCountInterceptor.class.getName() + ".before";
+    private static final String ASYNC = QueryCountInterceptor.class.getName() + ".async";
+
+    private final QueryCounter queryCounter;
+    private final MeterRegistry registry;
+    private final long warnThreshold;
+
+    public QueryCountInterceptor(QueryCounter queryCounter, MeterRegistry registry,
+                                 @Value("${querydsl.n-plus-one.warn-threshold:10}") long warnThreshold) {
+        this.queryCounter = queryCounter;
+        this.registry = registry;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        //비동기 처리 후 다시 dispatch 될 때는 새로 세지 않는다.
+        if (request.getDispatcherType() != DispatcherType.ASYNC) {
+            request.setAttribute(BEFORE, queryCounter.snapshot());
+        }
+        return true;
+    }
+
+    //비동기 처리가 시작되면 요청 스레드는 반납되므로 카운터를 비운다. afterCompletion은 불리지 않는다.
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(ASYNC, Boolean.TRUE);
+        queryCounter.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryCounter.Counts before = (QueryCounter.Counts) request.getAttribute(BEFORE);
+        try {
+            if (before != null && request.getAttribute(ASYNC) == null) {
+                record(request, queryCounter.snapshot().getSelects() - before.getSelects());
+            }
+        } finally {
+            queryCounter.clear();
+        }
+    }
+
+    private void record(HttpServletRequest request, long selects) {
+        String uri = uri(request);
+
+        DistributionSummary.builder("http.server.requests.selects")
+                .tag("uri", uri)
+                .register(registry)
+                .record(selects);
+        if (selects > warnThreshold) {
+            Counter.builder("http.server.requests.n_plus_one")
+                    .tag("uri", uri)
+                    .register(registry)
+                    .increment();
+            log.warn("possible N+1: {} {} issued {} selects (threshold {})",
+                    request.getMethod(), uri, selects, warnThreshold);
+        }
+    }
+
+    //태그 카디널리티를 위해 실제 경로 대신 매핑 패턴 사용
+    private String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "UNKNOWN" : pattern.toString();
+    }
+}
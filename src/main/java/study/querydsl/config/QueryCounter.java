@@ -0,0 +1,66 @@
+package study.querydsl.config;
+
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * 현재 스레드에서 실행된 JDBC 쿼리 수와 로딩된 엔티티 수를 센다.
+ * StatementInspector, PostLoadEventListener로 HibernateConfig에서 등록한다.
+ */
+@Component
+public class QueryCounter implements StatementInspector, PostLoadEventListener {
+
+    private final ThreadLocal<Counts> counts = ThreadLocal.withInitial(Counts::new);
+
+    @Override
+    public String inspect(String sql) {
+        Counts current = counts.get();
+        current.statements++;
+        if (sql.regionMatches(true, 0, "select", 0, 6)) {
+            current.selects++;
+        }
+        return sql;
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        counts.get().entities++;
+    }
+
+    public Counts snapshot() {
+        return counts.get().copy();
+    }
+
+    //풀 스레드에 카운터가 남지 않도록 요청/작업이 끝날 때 호출한다. 이후 snapshot은 0부터 다시 센다.
+    public void clear() {
+        counts.remove();
+    }
+
+    public static class Counts {
+        private long statements;
+        private long selects;
+        private long entities;
+
+        private Counts copy() {
+            Counts copy = new Counts();
+            copy.statements = statements;
+            copy.selects = selects;
+            copy.entities = entities;
+            return copy;
+        }
+
+        public long getStatements() {
+            return statements;
+        }
+
+        public long getSelects() {
+            return selects;
+        }
+
+        public long getEntities() {
+            return entities;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydsl.config;
+
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * querydsl 조회 쿼리 메트릭
+ * - querydsl.query : 실행 시간 (histogram)
+ * - querydsl.query.rows / statements / entities : 결과 행 수, 실행된 JDBC 쿼리 수, 로딩된 엔티티 수
+ * 모두 repository 메서드(method)와 fetch 방식(op)으로 태그한다.
+ * 임계치를 넘는 쿼리만 JPQL과 바인딩 값을 함께 로그로 남긴다.
+ */
+@Slf4j
+@Component
+public class QueryMetrics {
+
+    private final MeterRegistry registry;
+    private final QueryCounter queryCounter;
+    private final long slowQueryThresholdNanos;
+
+    public QueryMetrics(MeterRegistry registry, QueryCounter queryCounter,
+                        @Value("${querydsl.metrics.slow-query-threshold-millis:200}") long slowQueryThresholdMillis) {
+        this.registry = registry;
+        this.queryCounter = queryCounter;
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+    }
+
+    //태그와 카운터는 시작 스레드 기준, 스트림은 다른 스레드에서 닫힐 수 있다.
+    Sample start() {
+        return new Sample(System.nanoTime(), queryCounter.snapshot(), RepositoryMethodAspect.currentMethod());
+    }
+
+    void stop(Sample sample, JPAQuery<?> query, String op, long rows) {
+        long elapsed = System.nanoTime() - sample.startNanos;
+        String method = sample.method;
+
+        Timer.builder("querydsl.query")
+                .tag("method", method)
+                .tag("op", op)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        summary("querydsl.query.rows", method, op).record(rows);
+        //스레드별 카운터라 다른 스레드에서 끝나면 차이를 구할 수 없다.
+        if (sample.thread == Thread.currentThread()) {
+            QueryCounter.Counts after = queryCounter.snapshot();
+            summary("querydsl.query.statements", method, op)
+                    .record(after.getStatements() - sample.before.getStatements());
+            summary("querydsl.query.entities", method, op)
+                    .record(after.getEntities() - sample.before.getEntities());
+        }
+
+        if (elapsed >= slowQueryThresholdNanos) {
+            logSlowQuery(query, method, elapsed, rows);
+        }
+    }
+
+    private DistributionSummary summary(String name, String method, String op) {
+        return DistributionSummary.builder(name)
+                .tag("method", method)
+                .tag("op", op)
+                .register(registry);
+    }
+
+    private void logSlowQuery(JPAQuery<?> query, String method, long elapsedNanos, long rows) {
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT);
+        serializer.serialize(query.getMetadata(), false, null);
+        log.warn("slow query {}ms method={} rows={}\n{}\nparams={}",
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), method, rows,
+                serializer, serializer.getConstants());
+    }
+
+    static class Sample {
+        private final long startNanos;
+        private final QueryCounter.Counts before;
+        private final String method;
+        private final Thread thread = Thread.currentThread();
+
+        private Sample(long startNanos, QueryCounter.Counts before, String method) {
+            this.startNanos = startNanos;
+            this.before = before;
+            this.method = method;
+        }
+    }
+}
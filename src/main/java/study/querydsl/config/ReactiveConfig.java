@@ -0,0 +1,18 @@
+package study.querydsl.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class ReactiveConfig {
+
+    //blocking JPA 작업 전용 스레드, 커넥션 풀 크기를 넘지 않도록 제한한다.
+    @Bean(destroyMethod = "dispose")
+    Scheduler jdbcScheduler(@Value("${querydsl.reactive.threads:10}") int threads,
+                            @Value("${querydsl.reactive.queue-size:1000}") int queueSize) {
+        return Schedulers.newBoundedElastic(threads, queueSize, "jdbc");
+    }
+}
@@ -0,0 +1,219 @@
+package study.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * readOnly 트랜잭션은 정상 상태인 replica 중 하나(round-robin)로, 나머지는 primary로 보낸다.
+ * 트랜잭션의 readOnly 여부는 커넥션을 실제로 사용할 때 결정되므로 LazyConnectionDataSourceProxy로 감싸서 사용한다.
+ * 쓰기한 클라이언트의 읽기는 stickyPrimaryMillis 동안 replica 지연을 피하기 위해 primary로 보낸다. (read-your-writes)
+ * - 웹 요청 : 같은 요청 안의 이후 읽기, 응답 쿠키(STICKY_COOKIE)를 가진 다음 요청의 읽기
+ * - 요청 밖(배치, 스케줄러 등) : 같은 스레드의 이후 읽기
+ * 다른 클라이언트의 읽기는 영향을 받지 않는다.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARY = "primary";
+    static final String STICKY_COOKIE = "primary-until";
+    private static final String STICKY_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".primaryUntil";
+
+    private final List<ReplicaState> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final ThreadLocal<Long> threadPrimaryUntil = new ThreadLocal<>();
+    private final long stickyPrimaryMillis;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final ScheduledExecutorService healthChecker;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources,
+                                    ReplicationProperties properties) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            ReplicaState replica = new ReplicaState("replica-" + i, replicaDataSources.get(i));
+            replicas.add(replica);
+            targets.put(replica.key, replica.dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.stickyPrimaryMillis = properties.getStickyPrimaryMillis();
+        this.lagQuery = properties.getLagQuery();
+        this.maxLagSeconds = properties.getMaxLagSeconds();
+
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getHealthCheckIntervalMillis();
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            markWrite();
+            return PRIMARY;
+        }
+        if (recentlyWrote()) {
+            return PRIMARY;
+        }
+        return nextHealthyReplica();
+    }
+
+    //쓰기 트랜잭션이 끝난 시점부터 sticky 구간을 센다.
+    private void markWrite() {
+        recordWrite();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    recordWrite();
+                }
+            });
+        }
+    }
+
+    private void recordWrite() {
+        if (stickyPrimaryMillis <= 0) {
+            return;
+        }
+        long until = System.currentTimeMillis() + stickyPrimaryMillis;
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            threadPrimaryUntil.set(until);
+            return;
+        }
+        attributes.getRequest().setAttribute(STICKY_ATTRIBUTE, until);
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(STICKY_COOKIE, Long.toString(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(stickyPrimaryMillis + 999)));
+            response.addCookie(cookie);
+        }
+    }
+
+    private boolean recentlyWrote() {
+        long now = System.currentTimeMillis();
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            Long until = threadPrimaryUntil.get();
+            return until != null && now < until;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        Object until = request.getAttribute(STICKY_ATTRIBUTE);
+        if (until instanceof Long) {
+            return now < (Long) until;
+        }
+        return now < cookieUntil(request, now);
+    }
+
+    //클라이언트가 보낸 값이므로 sticky 구간보다 먼 시각은 무시한다.
+    private long cookieUntil(HttpServletRequest request, long now) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (STICKY_COOKIE.equals(cookie.getName())) {
+                try {
+                    long until = Long.parseLong(cookie.getValue());
+                    return until <= now + stickyPrimaryMillis ? until : 0;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static ServletRequestAttributes currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes ? (ServletRequestAttributes) attributes : null;
+    }
+
+    private Object nextHealthyReplica() {
+        int size = replicas.size();
+        for (int i = 0; i < size; i++) {
+            ReplicaState replica = replicas.get(Math.floorMod(next.getAndIncrement(), size));
+            if (replica.healthy) {
+                return replica.key;
+            }
+        }
+        return PRIMARY;
+    }
+
+    void checkReplicas() {
+        for (ReplicaState replica : replicas) {
+            boolean healthy = check(replica);
+            if (healthy != replica.healthy) {
+                log.warn("{} is now {}", replica.key, healthy ? "healthy" : "unhealthy");
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    private boolean check(ReplicaState replica) {
+        try (Connection connection = replica.dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            if (lagQuery == null || lagQuery.isBlank()) {
+                return connection.isValid(1);
+            }
+            try (ResultSet rs = statement.executeQuery(lagQuery)) {
+                return rs.next() && rs.getLong(1) <= maxLagSeconds;
+            }
+        } catch (Exception e) {
+            log.debug("{} health check failed", replica.key, e);
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        healthChecker.shutdownNow();
+        for (Object target : getResolvedDataSources().values()) {
+            if (target instanceof AutoCloseable) {
+                ((AutoCloseable) target).close();
+            }
+        }
+    }
+
+    private static class ReplicaState {
+        private final String key;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private ReplicaState(String key, DataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * querydsl.replication.enabled=true 이면 spring.datasource를 primary로, querydsl.replication.replicas를 읽기 전용으로 사용한다.
+ * MemberJpaRepository 같은 @Transactional(readOnly = true) 조회는 replica, 쓰기와 벌크 연산은 primary로 간다.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicationProperties.class)
+@ConditionalOnProperty(prefix = "querydsl.replication", name = "enabled", havingValue = "true")
+public class ReplicationDataSourceConfig {
+
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                      ReplicationProperties replicationProperties,
+                                                      Environment environment) {
+        Binder binder = Binder.get(environment);
+        DataSource primary = hikari(binder, dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build());
+        List<DataSource> replicas = new ArrayList<>();
+        for (ReplicationProperties.Replica replica : replicationProperties.getReplicas()) {
+            replicas.add(hikari(binder, DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build()));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, replicationProperties);
+    }
+
+    //자동 설정 DataSource처럼 spring.datasource.hikari.* (풀 크기, timeout 등)를 적용한다. replica도 같은 풀 설정을 쓴다.
+    private HikariDataSource hikari(Binder binder, HikariDataSource dataSource) {
+        return binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource)).orElse(dataSource);
+    }
+
+    //readOnly 여부가 정해진 뒤에 실제 커넥션을 고르도록 지연시킨다.
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
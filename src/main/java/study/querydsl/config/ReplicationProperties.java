@@ -0,0 +1,31 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.replication")
+public class ReplicationProperties {
+
+    private boolean enabled;
+    private List<Replica> replicas = new ArrayList<>();
+    //쓰기한 클라이언트(요청 쿠키, 요청 밖이면 스레드)의 읽기를 이 시간 동안 primary로 보낸다. (read-your-writes)
+    private long stickyPrimaryMillis = 1000;
+    private long healthCheckIntervalMillis = 5000;
+    //복제 지연(초)을 반환하는 쿼리, 비어있으면 연결 확인만 한다.
+    private String lagQuery;
+    private long maxLagSeconds = 5;
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
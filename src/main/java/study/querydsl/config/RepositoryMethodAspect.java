@@ -0,0 +1,53 @@
+package study.querydsl.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * 실행 중인 @Repository 메서드 이름을 기록해서 쿼리 메트릭의 method 태그로 사용한다.
+ * 중첩 호출이면 가장 바깥 메서드 기준으로 태그를 남긴다.
+ */
+@Aspect
+@Component
+public class RepositoryMethodAspect {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    @Around("@within(org.springframework.stereotype.Repository)")
+    public Object tag(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (CURRENT.get() != null) {
+            return joinPoint.proceed();
+        }
+        CURRENT.set(joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    //다른 스레드에서 실행되는 작업(reactive 구독 등)에 조립 시점의 태그를 넘긴다.
+    public static <T> T callAs(String method, Supplier<T> action) {
+        String previous = CURRENT.get();
+        CURRENT.set(method);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public static String currentMethod() {
+        String method = CURRENT.get();
+        return method == null ? "none" : method;
+    }
+}
@@ -0,0 +1,262 @@
+package study.querydsl.config;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.*;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.metamodel.EntityType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 서브쿼리 최적화 단계, optimize(query)로 선택적으로 적용한다.
+ * - 비교 연산(=, <>, <, >, <=, >=)의 피연산자인 비상관 스칼라 서브쿼리는 한 번 먼저 실행해서 값으로 바꾼다.
+ *   결과가 null이거나 여러 건이면 원래 서브쿼리를 그대로 둔다.
+ * - where 최상위 AND 조건의 x in (select s.y from S s where ...) 는 from에 S를 추가하고 x = s.y 로 바꾼다. (semi join)
+ *   s.y가 S의 id면 행이 늘지 않고, 아니면 join 없이 root 엔티티 하나만 조회하는 쿼리에만 distinct를 붙여서 적용한다.
+ * select 절 서브쿼리는 Tuple이 식으로 값을 찾으므로 바꾸지 않는다.
+ * 원본 쿼리의 hint, lock mode, flush mode는 그대로 유지하고, lock mode가 있으면 semi join은 하지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class SubQueryOptimizer {
+
+    private static final Set<Operator> COMPARISONS = Set.of(Ops.EQ, Ops.NE, Ops.LT, Ops.GT, Ops.LOE, Ops.GOE);
+
+    private final EntityManager em;
+    private final QueryMetrics queryMetrics;
+
+    public <T> JPAQuery<T> optimize(JPAQuery<T> query) {
+        InstrumentedJPAQuery<T> optimized = new InstrumentedJPAQuery<>(em, queryMetrics, query);
+        QueryMetadata metadata = optimized.getMetadata();
+        //lock이 걸린 쿼리에 join을 추가하면 서브쿼리 테이블 행까지 잠그므로 semi join은 하지 않는다.
+        boolean joinable = !optimized.isLocked();
+        Predicate where = metadata.getWhere();
+        if (where != null) {
+            metadata.clearWhere();
+            for (Predicate conjunct : conjuncts(where)) {
+                Predicate evaluated = (Predicate) preEvaluate(conjunct);
+                metadata.addWhere(joinable ? semiJoin(metadata, evaluated) : evaluated);
+            }
+        }
+        return optimized;
+    }
+
+    private Expression<?> preEvaluate(Expression<?> expression) {
+        if (!(expression instanceof Operation)) {
+            return expression;
+        }
+        Operation<?> operation = (Operation<?>) expression;
+        boolean comparison = COMPARISONS.contains(operation.getOperator());
+        List<Expression<?>> args = new ArrayList<>(operation.getArgs());
+        boolean changed = false;
+        for (int i = 0; i < args.size(); i++) {
+            Expression<?> arg = args.get(i);
+            Expression<?> rewritten = comparison && arg instanceof SubQueryExpression
+                    ? evaluateScalar((SubQueryExpression<?>) arg)
+                    : preEvaluate(arg);
+            if (rewritten != arg) {
+                args.set(i, rewritten);
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return expression;
+        }
+        if (operation instanceof Predicate) {
+            return ExpressionUtils.predicate(operation.getOperator(), args.toArray(new Expression[0]));
+        }
+        return ExpressionUtils.operation(operation.getType(), operation.getOperator(), args.toArray(new Expression[0]));
+    }
+
+    private Expression<?> evaluateScalar(SubQueryExpression<?> subQuery) {
+        QueryMetadata metadata = subQuery.getMetadata();
+        if (metadata.getProjection() instanceof FactoryExpression || !freeRoots(metadata).isEmpty()) {
+            return subQuery;
+        }
+        Object value;
+        try {
+            value = new InstrumentedJPAQuery<>(em, queryMetrics, metadata.clone()).fetchOne();
+        } catch (NonUniqueResultException e) {
+            return subQuery;
+        }
+        if (value == null) {
+            return subQuery;
+        }
+        if (value instanceof Number) {
+            return numberLiteral((Number) value, subQuery);
+        }
+        return ConstantImpl.create(value);
+    }
+
+    //파라미터로 바인딩하면 hibernate가 반대편 타입(int age)과 다르다고 거부하므로 (avg -> Double) 리터럴로 넣는다.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Expression<?> numberLiteral(Number value, SubQueryExpression<?> subQuery) {
+        String literal;
+        if (value instanceof Double || value instanceof Float) {
+            double d = value.doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                return subQuery;
+            }
+            literal = BigDecimal.valueOf(d).toPlainString();
+        } else if (value instanceof BigDecimal) {
+            literal = ((BigDecimal) value).toPlainString();
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte || value instanceof BigInteger) {
+            literal = value.toString();
+        } else {
+            return subQuery;
+        }
+        return Expressions.numberTemplate((Class) value.getClass(), literal);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate semiJoin(QueryMetadata outer, Predicate conjunct) {
+        if (!(conjunct instanceof Operation) || ((Operation<?>) conjunct).getOperator() != Ops.IN) {
+            return conjunct;
+        }
+        Operation<?> in = (Operation<?>) conjunct;
+        if (!(in.getArg(1) instanceof SubQueryExpression)) {
+            return conjunct;
+        }
+        QueryMetadata sub = ((SubQueryExpression<?>) in.getArg(1)).getMetadata();
+        if (sub.getJoins().size() != 1 || sub.getJoins().get(0).getCondition() != null
+                || !sub.getGroupBy().isEmpty() || sub.getHaving() != null || sub.getModifiers().isRestricting()
+                || !freeRoots(sub).isEmpty()) {
+            return conjunct;
+        }
+        Expression<?> from = sub.getJoins().get(0).getTarget();
+        if (!(from instanceof EntityPath) || !(sub.getProjection() instanceof Path)) {
+            return conjunct;
+        }
+        EntityPath<?> subRoot = (EntityPath<?>) from;
+        Path<?> projection = (Path<?>) sub.getProjection();
+        //같은 alias가 바깥 쿼리에 있으면 합칠 수 없다.
+        if (!projection.getRoot().equals(subRoot) || declaredRoots(outer).contains(subRoot)) {
+            return conjunct;
+        }
+        if (!isId(projection, subRoot)) {
+            if (!isSingleRootEntityQuery(outer)) {
+                return conjunct;
+            }
+            outer.setDistinct(true);
+        }
+        outer.addJoin(JoinType.DEFAULT, subRoot);
+        return ExpressionUtils.allOf(sub.getWhere(), ExpressionUtils.eq((Expression) in.getArg(0), projection));
+    }
+
+    //중복 행이 원래 없으므로 distinct를 붙여도 결과가 같다.
+    //distinct + order by는 정렬 식이 select 절에 있어야 하므로 root의 직접 속성 정렬만 허용한다.
+    private static boolean isSingleRootEntityQuery(QueryMetadata metadata) {
+        if (metadata.getJoins().size() != 1 || !metadata.getGroupBy().isEmpty()) {
+            return false;
+        }
+        Expression<?> root = metadata.getJoins().get(0).getTarget();
+        if (!(root instanceof EntityPath) || !root.equals(metadata.getProjection())) {
+            return false;
+        }
+        for (OrderSpecifier<?> orderBy : metadata.getOrderBy()) {
+            Expression<?> target = orderBy.getTarget();
+            if (!(target instanceof Path) || !root.equals(((Path<?>) target).getMetadata().getParent())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isId(Path<?> path, EntityPath<?> root) {
+        if (!root.equals(path.getMetadata().getParent())) {
+            return false;
+        }
+        EntityType<?> entityType = em.getMetamodel().entity(root.getType());
+        return entityType.hasSingleIdAttribute()
+                && entityType.getId(entityType.getIdType().getJavaType()).getName().equals(path.getMetadata().getName());
+    }
+
+    private static List<Predicate> conjuncts(Predicate predicate) {
+        List<Predicate> result = new ArrayList<>();
+        Expression<?> extracted = ExpressionUtils.extract(predicate);
+        if (extracted instanceof Operation && ((Operation<?>) extracted).getOperator() == Ops.AND) {
+            for (Expression<?> arg : ((Operation<?>) extracted).getArgs()) {
+                result.addAll(conjuncts((Predicate) arg));
+            }
+        } else {
+            result.add((Predicate) extracted);
+        }
+        return result;
+    }
+
+    private static Set<Expression<?>> declaredRoots(QueryMetadata metadata) {
+        Set<Expression<?>> declared = new HashSet<>();
+        for (JoinExpression join : metadata.getJoins()) {
+            Expression<?> target = join.getTarget();
+            if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+                declared.add(((Operation<?>) target).getArg(1));
+            } else if (target instanceof Path) {
+                declared.add(((Path<?>) target).getRoot());
+            }
+        }
+        return declared;
+    }
+
+    //서브쿼리 안에서 선언되지 않은 root, 비어있지 않으면 바깥 쿼리와 상관된 서브쿼리
+    private static Set<Expression<?>> freeRoots(QueryMetadata metadata) {
+        Set<Expression<?>> used = new HashSet<>();
+        for (JoinExpression join : metadata.getJoins()) {
+            Expression<?> target = join.getTarget();
+            if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+                collectRoots(((Operation<?>) target).getArg(0), used);
+            } else if (!(target instanceof Path)) {
+                collectRoots(target, used);
+            }
+            collectRoots(join.getCondition(), used);
+        }
+        collectRoots(metadata.getProjection(), used);
+        collectRoots(metadata.getWhere(), used);
+        collectRoots(metadata.getHaving(), used);
+        for (Expression<?> groupBy : metadata.getGroupBy()) {
+            collectRoots(groupBy, used);
+        }
+        for (OrderSpecifier<?> orderBy : metadata.getOrderBy()) {
+            collectRoots(orderBy.getTarget(), used);
+        }
+        used.removeAll(declaredRoots(metadata));
+        return used;
+    }
+
+    private static void collectRoots(Expression<?> expression, Set<Expression<?>> used) {
+        if (expression == null) {
+            return;
+        }
+        if (expression instanceof Path) {
+            used.add(((Path<?>) expression).getRoot());
+        } else if (expression instanceof Operation) {
+            for (Expression<?> arg : ((Operation<?>) expression).getArgs()) {
+                collectRoots(arg, used);
+            }
+        } else if (expression instanceof TemplateExpression) {
+            for (Object arg : ((TemplateExpression<?>) expression).getArgs()) {
+                if (arg instanceof Expression) {
+                    collectRoots((Expression<?>) arg, used);
+                }
+            }
+        } else if (expression instanceof FactoryExpression) {
+            for (Expression<?> arg : ((FactoryExpression<?>) expression).getArgs()) {
+                collectRoots(arg, used);
+            }
+        } else if (expression instanceof SubQueryExpression) {
+            used.addAll(freeRoots(((SubQueryExpression<?>) expression).getMetadata()));
+        }
+    }
+}
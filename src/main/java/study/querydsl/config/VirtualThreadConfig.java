@@ -0,0 +1,70 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * virtual 프로필: 요청을 virtual thread에서 실행한다. (application-virtual.yml에서 open-in-view 비활성화)
+ * virtual thread는 JDK 21부터 지원하므로 리플렉션으로 확인하고, 없으면 기존 플랫폼 스레드 풀을 그대로 쓴다.
+ * 요청 수가 커넥션 풀보다 훨씬 많아질 수 있으므로 ConnectionGateFilter로 DB를 쓰는 요청 수를 풀 크기로 제한한다.
+ */
+@Slf4j
+@Configuration
+@Profile("virtual")
+public class VirtualThreadConfig {
+
+    @Bean
+    TomcatProtocolHandlerCustomizer<?> virtualThreadExecutorCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        return protocolHandler -> {
+            if (executor != null) {
+                protocolHandler.setExecutor(executor);
+            }
+        };
+    }
+
+    @Bean
+    FilterRegistrationBean<ConnectionGateFilter> connectionGateFilter(
+            DataSource dataSource,
+            @Value("${querydsl.connection-gate.permits:0}") int permits,
+            @Value("${querydsl.connection-gate.timeout-millis:2000}") long timeoutMillis) {
+        int size = permits > 0 ? permits : maximumPoolSize(dataSource);
+        FilterRegistrationBean<ConnectionGateFilter> registration =
+                new FilterRegistrationBean<>(new ConnectionGateFilter(size, timeoutMillis));
+        registration.addUrlPatterns("/v1/*", "/v2/*");
+        return registration;
+    }
+
+    private ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            log.info("servlet requests run on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            log.warn("virtual threads are not available on Java {}, using platform threads",
+                    System.getProperty("java.version"));
+            return null;
+        }
+    }
+
+    private int maximumPoolSize(DataSource dataSource) {
+        try {
+            return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        } catch (SQLException e) {
+            throw new IllegalStateException("set querydsl.connection-gate.permits for non-Hikari datasource", e);
+        }
+    }
+}
@@ -1,22 +1,97 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import study.querydsl.Repository.InvalidCursorException;
 import study.querydsl.Repository.MemberJpaRepository;
+import study.querydsl.Repository.MemberReactiveRepository;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSlice;
+import study.querydsl.dto.MemberSortKey;
 import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.service.MemberColumnarIndex;
+import study.querydsl.service.MemberSearchCache;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String NDJSON = "application/x-ndjson";
+
     private final MemberJpaRepository memberJpaRepository;
+    private final MemberReactiveRepository memberReactiveRepository;
+    private final MemberSearchCache memberSearchCache;
+    private final MemberColumnarIndex memberColumnarIndex;
+    private final ObjectMapper objectMapper;
 
+    //컬럼 인덱스를 사용하지 않거나 stale이면 캐시/JPA 조회
     @GetMapping("/v1/members")
     public List<MemberTeamDTO> searchMemberV1(MemberSearchCondition condition){
-        return memberJpaRepository.searchByBuilder(condition);
+        return memberColumnarIndex.search(condition,
+                c -> memberSearchCache.get(c, memberJpaRepository::searchByBuilder));
+    }
+
+    //NDJSON 스트리밍 export, 한 행씩 직렬화해서 바로 응답에 쓴다.
+    @GetMapping(value = "/v1/members/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportMemberV1(MemberSearchCondition condition){
+        StreamingResponseBody body = out -> {
+            //루트 값 구분자(공백) 없이 한 줄에 하나씩 쓰고, 응답 스트림은 컨테이너가 닫는다.
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null)) {
+                memberJpaRepository.streamByExpression(condition, dto -> {
+                    try {
+                        generator.writeObject(dto);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    //non-blocking 버전, cursor에서 읽는 대로 NDJSON으로 내보낸다.
+    @GetMapping(value = "/v1/members/reactive", produces = NDJSON)
+    public Flux<MemberTeamDTO> searchMemberReactive(MemberSearchCondition condition){
+        return memberReactiveRepository.searchByExpression(condition);
+    }
+
+    //cursor 기반 페이징, 응답의 nextCursor를 다음 요청의 cursor로 전달한다.
+    @GetMapping("/v2/members")
+    public MemberSlice searchMemberV2(MemberSearchCondition condition,
+                                      @RequestParam(defaultValue = "ID") MemberSortKey sort,
+                                      @RequestParam(required = false) String cursor,
+                                      @RequestParam(defaultValue = "20") int size){
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return memberJpaRepository.searchByCursor(condition, sort, cursor, pageSize);
+    }
+
+    //잘못된 cursor, 다른 정렬로 발급된 cursor는 클라이언트 오류
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String invalidCursor(InvalidCursorException e){
+        return e.getMessage();
     }
 }
@@ -0,0 +1,27 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+
+//Member 엔티티 조회 시 함께 로딩할 연관관계, 응답에서 사용하는 만큼만 로딩한다.
+@Getter
+@RequiredArgsConstructor
+public enum MemberFetchPlan {
+    //team은 프록시로 남는다.
+    MEMBER_ONLY("member-only"),
+    //team fetch join, 쿼리 1번
+    MEMBER_TEAM("member+team"),
+    //team fetch join + team.members를 IN 쿼리 한 번으로 로딩, 쿼리 2번
+    TEAM_MEMBERS("team+members");
+
+    private final String planName;
+
+    public static MemberFetchPlan of(String planName) {
+        return Arrays.stream(values())
+                .filter(plan -> plan.planName.equals(planName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("unknown fetch plan: " + planName));
+    }
+}
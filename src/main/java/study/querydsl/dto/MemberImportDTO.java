@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberImportDTO {
+
+    private String username;
+    private int age;
+    private String teamName;
+
+    public MemberImportDTO() {
+    }
+
+    public MemberImportDTO(String username, int age, String teamName) {
+        this.username = username;
+        this.age = age;
+        this.teamName = teamName;
+    }
+}
@@ -2,6 +2,8 @@ package study.querydsl.dto;
 
 import lombok.Data;
 
+import static org.springframework.util.StringUtils.hasText;
+
 @Data
 public class MemberSearchCondition {
 
@@ -9,4 +11,14 @@ public class MemberSearchCondition {
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    //검색에 영향이 없는 빈 문자열을 null로 맞춘 사본, 캐시 키로 사용한다.
+    public MemberSearchCondition normalized() {
+        MemberSearchCondition copy = new MemberSearchCondition();
+        copy.setUsername(hasText(username) ? username : null);
+        copy.setTeamName(hasText(teamName) ? teamName : null);
+        copy.setAgeGoe(ageGoe);
+        copy.setAgeLoe(ageLoe);
+        return copy;
+    }
 }
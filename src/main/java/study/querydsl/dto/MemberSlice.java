@@ -0,0 +1,23 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MemberSlice {
+
+    private List<MemberTeamDTO> content;
+    //다음 페이지 요청 시 그대로 전달하는 불투명 토큰, 마지막 페이지면 null
+    private String nextCursor;
+    private boolean hasNext;
+
+    public MemberSlice() {
+    }
+
+    public MemberSlice(List<MemberTeamDTO> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+}
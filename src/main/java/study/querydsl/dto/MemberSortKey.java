@@ -0,0 +1,8 @@
+package study.querydsl.dto;
+
+//keyset 페이징 정렬 기준, 모든 정렬은 member.id를 마지막 tie-breaker로 사용한다.
+public enum MemberSortKey {
+    ID,
+    AGE,
+    USERNAME
+}
@@ -1,7 +1,10 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import study.querydsl.entity.base.BaseEntity;
+import study.querydsl.entity.id.TunableSequenceGenerator;
 
 import javax.persistence.*;
 
@@ -9,13 +12,29 @@ import javax.persistence.*;
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
+//MemberSearchCondition 검색 경로 (username, team_id + age 범위, age 범위)
+//idx_member_age_team_username은 age 범위 조건용이고 member 쪽 컬럼(team_id, username)까지 인덱스에서 읽는다. team.name은 join으로 읽는다.
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"),
+        @Index(name = "idx_member_age_team_username", columnList = "age, team_id, username")
+})
 @NamedQuery(
         name = "Member.findByUsername",
         query = "select m from Member m where m.username = :username"
 )
 public class Member extends BaseEntity {
 
-    @Id @GeneratedValue
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    //pooled optimizer, 시퀀스 한 번 호출로 id 50개를 확보해서 insert batch가 가능하도록
+    //크기와 optimizer는 querydsl.id.member_seq.* 설정으로 변경 (TunableSequenceGenerator)
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @GenericGenerator(name = "member_seq_generator", strategy = TunableSequenceGenerator.STRATEGY, parameters = {
+            @Parameter(name = "sequence_name", value = "member_seq"),
+            @Parameter(name = "increment_size", value = "" + Member.ID_ALLOCATION_SIZE),
+            @Parameter(name = "optimizer", value = "pooled")
+    })
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -1,7 +1,13 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.id.TunableSequenceGenerator;
+import study.querydsl.entity.listener.EntityChangeListener;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -11,13 +17,29 @@ import java.util.List;
 @Setter @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@Cacheable
+@EntityListeners(EntityChangeListener.class)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Team.CACHE_REGION)
 public class Team {
 
-    @Id @GeneratedValue
+    public static final String CACHE_REGION = "team";
+    public static final String MEMBERS_CACHE_REGION = "teamMembers";
+    public static final String QUERY_CACHE_REGION = "teamQuery";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @GenericGenerator(name = "team_seq_generator", strategy = TunableSequenceGenerator.STRATEGY, parameters = {
+            @Parameter(name = "sequence_name", value = "team_seq"),
+            @Parameter(name = "increment_size", value = "" + Team.ID_ALLOCATION_SIZE),
+            @Parameter(name = "optimizer", value = "pooled")
+    })
     @Column(name = "team_id")
     private Long id;
     private String name;
 
+    //id 목록만 캐시되고 Member는 default_batch_fetch_size 단위로 조회된다.
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Team.MEMBERS_CACHE_REGION)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
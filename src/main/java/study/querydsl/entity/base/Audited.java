@@ -0,0 +1,11 @@
+package study.querydsl.entity.base;
+
+import java.time.LocalDateTime;
+
+//AuditListener가 트랜잭션 단위로 캐시된 시각과 작업자를 넣는다.
+public interface Audited {
+
+    void stampCreated(LocalDateTime now, String auditor);
+
+    void stampModified(LocalDateTime now, String auditor);
+}
@@ -1,33 +1,43 @@
 package study.querydsl.entity.base;
 
 import lombok.Getter;
-import org.springframework.data.annotation.CreatedBy;
-import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.annotation.LastModifiedBy;
-import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import study.querydsl.entity.listener.AuditListener;
+import study.querydsl.entity.listener.EntityChangeListener;
 
 import javax.persistence.Column;
 import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
 import java.time.LocalDateTime;
 
-@EntityListeners(AuditingEntityListener.class)
+//시각/작업자는 AuditListener, 벌크 update는 InstrumentedJPAQueryFactory가 채운다.
+@EntityListeners({AuditListener.class, EntityChangeListener.class})
 @MappedSuperclass
 @Getter
-public class BaseEntity {
+public class BaseEntity implements Audited {
+
+    public static final String LAST_MODIFIED_TIME = "lastModifiedTime";
+    public static final String LAST_MODIFIED_BY = "lastModifiedBy";
 
-    @CreatedDate
     @Column(updatable = false)
     private LocalDateTime createdTime;
 
-    @LastModifiedDate
     private LocalDateTime lastModifiedTime;
 
-    @CreatedBy
     @Column(updatable = false)
     private String createdBy;
 
-    @LastModifiedBy
     private String lastModifiedBy;
+
+    @Override
+    public void stampCreated(LocalDateTime now, String auditor) {
+        createdTime = now;
+        createdBy = auditor;
+        stampModified(now, auditor);
+    }
+
+    @Override
+    public void stampModified(LocalDateTime now, String auditor) {
+        lastModifiedTime = now;
+        lastModifiedBy = auditor;
+    }
 }
@@ -1,28 +1,31 @@
 package study.querydsl.entity.base;
 
 import lombok.Getter;
+import study.querydsl.entity.listener.AuditListener;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 //공통 속성 상속
+@EntityListeners(AuditListener.class)
 @MappedSuperclass
 @Getter
-public class JpaBaseEntity {
+public class JpaBaseEntity implements Audited {
+
+    public static final String UPDATED_DATE = "updatedDate";
 
     @Column(updatable = false)
     private LocalDateTime createdDate;
     private LocalDateTime updatedDate;
 
-    @PrePersist
-    public void prePersist() {
-        LocalDateTime now = LocalDateTime.now();
+    @Override
+    public void stampCreated(LocalDateTime now, String auditor) {
         createdDate = now;
         updatedDate = now;
     }
 
-    @PreUpdate
-    public void preUpdate(){
-        updatedDate = LocalDateTime.now();
+    @Override
+    public void stampModified(LocalDateTime now, String auditor) {
+        updatedDate = now;
     }
 }
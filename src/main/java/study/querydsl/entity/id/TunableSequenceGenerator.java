@@ -0,0 +1,37 @@
+package study.querydsl.entity.id;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 엔티티에 적은 increment_size, optimizer(pooled, pooled-lo)를 설정으로 덮어쓸 수 있는 시퀀스 생성기
+ * spring.jpa.properties.querydsl.id.{sequence_name}.increment-size / optimizer
+ * increment-size는 DB 시퀀스의 increment와 같아야 하므로 ddl-auto를 쓰지 않는 환경에서는 시퀀스도 같이 변경해야 한다.
+ */
+public class TunableSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY = "study.querydsl.entity.id.TunableSequenceGenerator";
+    static final String SETTING_PREFIX = "querydsl.id.";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        String prefix = SETTING_PREFIX + params.getProperty(SEQUENCE_PARAM) + ".";
+
+        Object incrementSize = settings.get(prefix + "increment-size");
+        if (incrementSize != null) {
+            params.setProperty(INCREMENT_PARAM, incrementSize.toString());
+        }
+        Object optimizer = settings.get(prefix + "optimizer");
+        if (optimizer != null) {
+            params.setProperty(OPT_PARAM, optimizer.toString());
+        }
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -0,0 +1,53 @@
+package study.querydsl.entity.listener;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 트랜잭션당 한 번만 커밋 후 작업을 등록한다.
+ * 엔티티 변경 이벤트마다 @TransactionalEventListener로 synchronization을 쌓는 대신,
+ * 트랜잭션에 key를 묶어 두고 첫 이벤트에서만 등록한다. 트랜잭션 밖이면 바로 실행한다.
+ */
+public final class AfterCommitOnce implements TransactionSynchronization {
+
+    private final Object key;
+    private final Runnable action;
+
+    private AfterCommitOnce(Object key, Runnable action) {
+        this.key = key;
+        this.action = action;
+    }
+
+    public static void register(Object key, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(key)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(key, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new AfterCommitOnce(key, action));
+    }
+
+    //REQUIRES_NEW로 일시 정지된 동안에는 안쪽 트랜잭션이 따로 등록하도록 key를 풀어 둔다.
+    @Override
+    public void suspend() {
+        TransactionSynchronizationManager.unbindResourceIfPossible(key);
+    }
+
+    @Override
+    public void resume() {
+        TransactionSynchronizationManager.bindResource(key, Boolean.TRUE);
+    }
+
+    @Override
+    public void afterCommit() {
+        action.run();
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(key);
+    }
+}
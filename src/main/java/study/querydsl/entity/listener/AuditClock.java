@@ -0,0 +1,74 @@
+package study.querydsl.entity.listener;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 감사(audit) 시각과 작업자
+ * 트랜잭션 안에서는 처음 조회한 값을 트랜잭션이 끝날 때까지 재사용하므로
+ * 엔티티마다 시계/AuditorAware를 호출하지 않고, 같은 트랜잭션에서 변경된 행은 같은 시각을 갖는다.
+ */
+@Component
+public class AuditClock {
+
+    private final Clock clock;
+    private final ObjectProvider<AuditorAware<String>> auditorAware;
+
+    public AuditClock(ObjectProvider<Clock> clock, ObjectProvider<AuditorAware<String>> auditorAware) {
+        this.clock = clock.getIfAvailable(Clock::systemDefaultZone);
+        this.auditorAware = auditorAware;
+    }
+
+    public Stamp current() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return newStamp();
+        }
+        Stamp stamp = (Stamp) TransactionSynchronizationManager.getResource(this);
+        if (stamp == null) {
+            Stamp created = newStamp();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                //REQUIRES_NEW 안쪽 트랜잭션은 자기 시각을 갖는다.
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AuditClock.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(AuditClock.this, created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AuditClock.this);
+                }
+            });
+            stamp = created;
+        }
+        return stamp;
+    }
+
+    private Stamp newStamp() {
+        AuditorAware<String> auditor = auditorAware.getIfAvailable();
+        //DB timestamp 정밀도(마이크로초)에 맞춰서 저장 전후 값이 같도록
+        return new Stamp(LocalDateTime.now(clock).truncatedTo(ChronoUnit.MICROS),
+                auditor != null ? auditor.getCurrentAuditor().orElse(null) : null);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Stamp {
+        private final LocalDateTime now;
+        private final String auditor;
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.entity.listener;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.base.Audited;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+
+//AuditingEntityListener 대신 사용, 리플렉션 없이 AuditClock의 트랜잭션 캐시 값을 넣는다.
+@Component
+@RequiredArgsConstructor
+public class AuditListener {
+
+    private final AuditClock auditClock;
+
+    @PrePersist
+    public void prePersist(Object entity) {
+        if (entity instanceof Audited) {
+            AuditClock.Stamp stamp = auditClock.current();
+            ((Audited) entity).stampCreated(stamp.getNow(), stamp.getAuditor());
+        }
+    }
+
+    @PreUpdate
+    public void preUpdate(Object entity) {
+        if (entity instanceof Audited) {
+            AuditClock.Stamp stamp = auditClock.current();
+            ((Audited) entity).stampModified(stamp.getNow(), stamp.getAuditor());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package study.querydsl.entity.listener;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import static study.querydsl.entity.listener.EntityChangedEvent.ChangeType.*;
+
+//hibernate가 SpringBeanContainer를 통해 빈으로 생성한다.
+@Component
+@RequiredArgsConstructor
+public class EntityChangeListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    @PostPersist
+    public void postPersist(Object entity) {
+        publish(entity, PERSIST);
+    }
+
+    @PostUpdate
+    public void postUpdate(Object entity) {
+        publish(entity, UPDATE);
+    }
+
+    @PostRemove
+    public void postRemove(Object entity) {
+        publish(entity, REMOVE);
+    }
+
+    private void publish(Object entity, EntityChangedEvent.ChangeType changeType) {
+        publisher.publishEvent(new EntityChangedEvent(Hibernate.getClass(entity), entity, changeType));
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.entity.listener;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 엔티티 변경 이벤트
+ * 엔티티 리스너(단건)와 querydsl 벌크 update/delete 에서 발행한다. 벌크 연산은 id가 없다.
+ */
+@Getter
+@ToString
+public class EntityChangedEvent {
+
+    public enum ChangeType {
+        PERSIST, UPDATE, REMOVE, BULK_UPDATE, BULK_DELETE
+    }
+
+    private final Class<?> entityType;
+    private final Object entity;
+    private final ChangeType changeType;
+
+    public EntityChangedEvent(Class<?> entityType, Object entity, ChangeType changeType) {
+        this.entityType = entityType;
+        this.entity = entity;
+        this.changeType = changeType;
+    }
+
+    public boolean isBulk() {
+        return changeType == ChangeType.BULK_UPDATE || changeType == ChangeType.BULK_DELETE;
+    }
+}
@@ -0,0 +1,116 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.NoopOptimizer;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.PooledLoOptimizer;
+import org.hibernate.id.enhanced.PooledLoThreadLocalOptimizer;
+import org.hibernate.id.enhanced.PooledOptimizer;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hibernate를 거치지 않는 insert(JDBC 등)용 id 할당
+ * 엔티티의 시퀀스를 한 번 호출해서 increment_size 만큼의 연속된 id 블록을 확보한다.
+ * 블록은 DB 시퀀스가 나눠주므로 여러 노드, Hibernate 자신의 optimizer와 같이 써도 겹치지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdBlockAllocator {
+
+    private final EntityManagerFactory emf;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Class<?>, Sequence> sequences = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Block> current = new ConcurrentHashMap<>();
+
+    //새 블록 하나를 확보한다. [first, first + size)
+    public IdBlock reserve(Class<?> entityType) {
+        Sequence sequence = sequence(entityType);
+        long value = jdbcTemplate.queryForObject(sequence.nextValSql, Long.class);
+        if (sequence.pooledLo) {
+            return new IdBlock(value, sequence.size);
+        }
+        //pooled는 (hi - size, hi] 구간, 시퀀스 초기값(1)은 Hibernate가 별도 구간으로 쓰므로 건너뛴다.
+        if (value - sequence.size + 1 < 1) {
+            value = jdbcTemplate.queryForObject(sequence.nextValSql, Long.class);
+        }
+        return new IdBlock(value - sequence.size + 1, sequence.size);
+    }
+
+    //메모리에 들고 있는 블록에서 하나씩 꺼낸다, 블록이 끝날 때만 시퀀스를 호출한다.
+    public long next(Class<?> entityType) {
+        while (true) {
+            Block block = current.get(entityType);
+            if (block != null) {
+                long id = block.next.getAndIncrement();
+                if (id < block.end) {
+                    return id;
+                }
+            }
+            synchronized (this) {
+                if (current.get(entityType) == block) {
+                    IdBlock reserved = reserve(entityType);
+                    current.put(entityType, new Block(reserved.getFirst(), reserved.getFirst() + reserved.getSize()));
+                }
+            }
+        }
+    }
+
+    public int blockSize(Class<?> entityType) {
+        return sequence(entityType).size;
+    }
+
+    private Sequence sequence(Class<?> entityType) {
+        return sequences.computeIfAbsent(entityType, type -> {
+            SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+            IdentifierGenerator generator = sessionFactory.getMetamodel().entityPersister(type).getIdentifierGenerator();
+            if (!(generator instanceof SequenceStyleGenerator)) {
+                throw new IllegalArgumentException(type.getSimpleName() + " does not use a sequence generator");
+            }
+            SequenceStyleGenerator sequenceGenerator = (SequenceStyleGenerator) generator;
+            Optimizer optimizer = sequenceGenerator.getOptimizer();
+            boolean pooledLo = optimizer instanceof PooledLoOptimizer || optimizer instanceof PooledLoThreadLocalOptimizer;
+            if (!pooledLo && !(optimizer instanceof PooledOptimizer) && !(optimizer instanceof NoopOptimizer)) {
+                throw new IllegalArgumentException(type.getSimpleName() + " uses unsupported optimizer " + optimizer.getClass().getSimpleName());
+            }
+            String nextValSql = sessionFactory.getJdbcServices().getDialect()
+                    .getSequenceNextValString(sequenceGenerator.getDatabaseStructure().getName());
+            //noop은 시퀀스 값 하나가 id 하나
+            return new Sequence(nextValSql, optimizer.getIncrementSize(), pooledLo || optimizer instanceof NoopOptimizer);
+        });
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class IdBlock {
+        private final long first;
+        private final int size;
+    }
+
+    @RequiredArgsConstructor
+    private static class Sequence {
+        private final String nextValSql;
+        private final int size;
+        private final boolean pooledLo;
+    }
+
+    private static class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long first, long end) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package study.querydsl.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.Repository.TeamJpaRepository;
+import study.querydsl.dto.MemberImportDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.listener.AuditClock;
+import study.querydsl.entity.listener.EntityChangedEvent;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static study.querydsl.entity.listener.EntityChangedEvent.ChangeType.BULK_UPDATE;
+
+/**
+ * 대량 회원 적재
+ * 입력을 Stream으로 받아 CHUNK_SIZE 단위로 커밋하므로 전체 건수와 상관없이 메모리 사용량이 일정하다.
+ * - importMembers : JPA persist + hibernate.jdbc.batch_size insert batch
+ * - importMembersJdbc : IdBlockAllocator로 시퀀스 블록을 확보해서 multi-row insert
+ *
+ * 청크는 항상 새 트랜잭션으로 커밋되므로 쓰기 트랜잭션 안에서는 실행할 수 없다.
+ */
+@Slf4j
+@Service
+public class MemberBulkInsertService {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int COLUMNS = 8;
+
+    private final EntityManager em;
+    private final TeamJpaRepository teamJpaRepository;
+    private final EntityManagerFactory emf;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate chunkTx;
+    private final IdBlockAllocator idBlockAllocator;
+    private final AuditClock auditClock;
+    private final ApplicationEventPublisher publisher;
+
+    public MemberBulkInsertService(EntityManager em, TeamJpaRepository teamJpaRepository, EntityManagerFactory emf,
+                                   JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   IdBlockAllocator idBlockAllocator, AuditClock auditClock,
+                                   ApplicationEventPublisher publisher) {
+        this.em = em;
+        this.teamJpaRepository = teamJpaRepository;
+        this.emf = emf;
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.idBlockAllocator = idBlockAllocator;
+        this.auditClock = auditClock;
+        this.publisher = publisher;
+    }
+
+    public long importMembers(Stream<MemberImportDTO> records) {
+        return importInChunks(records, (chunk, teamIds) -> chunkTx.executeWithoutResult(status -> {
+            for (MemberImportDTO record : chunk) {
+                Member member = new Member(record.getUsername(), record.getAge());
+                //changeTeam은 team.members 컬렉션을 초기화하므로 reference만 연결한다.
+                Long teamId = resolveTeamId(teamIds, record.getTeamName());
+                if (teamId != null) {
+                    member.setTeam(em.getReference(Team.class, teamId));
+                }
+                em.persist(member);
+            }
+            em.flush();
+            em.clear();
+        }), "jpa");
+    }
+
+    public long importMembersJdbc(Stream<MemberImportDTO> records) {
+        //시퀀스 블록 하나가 insert 문 하나
+        int rowsPerStatement = idBlockAllocator.blockSize(Member.class);
+        long count = importInChunks(records, (chunk, teamIds) -> chunkTx.executeWithoutResult(status -> {
+            //청크 트랜잭션마다 한 번만 시각/작업자를 구한다.
+            AuditClock.Stamp stamp = auditClock.current();
+            List<Object[]> batch = new ArrayList<>();
+            List<Object[]> tail = Collections.emptyList();
+            for (int from = 0; from < chunk.size(); from += rowsPerStatement) {
+                List<MemberImportDTO> rows = chunk.subList(from, Math.min(from + rowsPerStatement, chunk.size()));
+                Object[] args = toArgs(rows, idBlockAllocator.reserve(Member.class).getFirst(), teamIds, stamp);
+                if (rows.size() == rowsPerStatement) {
+                    batch.add(args);
+                } else {
+                    tail = Collections.singletonList(args);
+                }
+            }
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(multiRowInsert(rowsPerStatement), batch);
+            }
+            for (Object[] args : tail) {
+                jdbcTemplate.update(multiRowInsert(args.length / COLUMNS), args);
+            }
+            //엔티티 리스너를 거치지 않으므로 벌크 update처럼 알린다. 커밋 후 검색 캐시, team_stats 등이 다시 맞춘다.
+            publisher.publishEvent(new EntityChangedEvent(Member.class, null, BULK_UPDATE));
+        }), "jdbc");
+        //hibernate를 거치지 않은 insert라 team.members 컬렉션 캐시를 직접 비운다.
+        emf.getCache().unwrap(Cache.class).evictRegion(Team.MEMBERS_CACHE_REGION);
+        return count;
+    }
+
+    private long importInChunks(Stream<MemberImportDTO> records, ChunkWriter writer, String mode) {
+        //호출자의 쓰기 트랜잭션과 섞이면 청크 커밋이 호출자 변경과 lock을 두고 기다리거나 따로 커밋된다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            throw new IllegalStateException("member import must not run inside a write transaction");
+        }
+        long start = System.nanoTime();
+        long total = 0;
+        //커밋된 청크에서 확인/생성한 팀만 다음 청크에서 재사용한다.
+        Map<String, Long> committedTeamIds = new HashMap<>();
+        List<MemberImportDTO> chunk = new ArrayList<>(CHUNK_SIZE);
+        Iterator<MemberImportDTO> iterator = records.iterator();
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() == CHUNK_SIZE) {
+                writeChunk(writer, chunk, committedTeamIds);
+                total += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(writer, chunk, committedTeamIds);
+            total += chunk.size();
+        }
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1_000_000_000.0;
+        log.info("member import({}) finished: {} rows in {}s ({} rows/sec)",
+                mode, total, String.format("%.2f", seconds), Math.round(total / seconds));
+        return total;
+    }
+
+    private void writeChunk(ChunkWriter writer, List<MemberImportDTO> chunk, Map<String, Long> committedTeamIds) {
+        Map<String, Long> teamIds = new HashMap<>(committedTeamIds);
+        writer.write(chunk, teamIds);
+        committedTeamIds.putAll(teamIds);
+    }
+
+    private Long resolveTeamId(Map<String, Long> teamIds, String teamName) {
+        if (teamName == null) {
+            return null;
+        }
+        return teamIds.computeIfAbsent(teamName, name -> teamJpaRepository.findByName(name)
+                .map(Team::getId)
+                .orElseGet(() -> {
+                    Team newTeam = new Team(name);
+                    em.persist(newTeam);
+                    //jdbc insert가 FK로 참조하므로 바로 반영
+                    em.flush();
+                    return newTeam.getId();
+                }));
+    }
+
+    private Object[] toArgs(List<MemberImportDTO> rows, long firstId, Map<String, Long> teamIds, AuditClock.Stamp stamp) {
+        Timestamp now = Timestamp.valueOf(stamp.getNow());
+        Object[] args = new Object[rows.size() * COLUMNS];
+        int i = 0;
+        for (MemberImportDTO row : rows) {
+            args[i++] = firstId++;
+            args[i++] = row.getUsername();
+            args[i++] = row.getAge();
+            args[i++] = resolveTeamId(teamIds, row.getTeamName());
+            args[i++] = now;
+            args[i++] = now;
+            args[i++] = stamp.getAuditor();
+            args[i++] = stamp.getAuditor();
+        }
+        return args;
+    }
+
+    private String multiRowInsert(int rows) {
+        StringBuilder sb = new StringBuilder(
+                "insert into member (member_id, username, age, team_id, created_time, last_modified_time, created_by, last_modified_by) values ");
+        for (int i = 0; i < rows; i++) {
+            sb.append(i == 0 ? "" : ",").append("(?, ?, ?, ?, ?, ?, ?, ?)");
+        }
+        return sb.toString();
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(List<MemberImportDTO> chunk, Map<String, Long> teamIds);
+    }
+}
@@ -0,0 +1,455 @@
+package study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.Repository.MemberJpaRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.listener.EntityChangedEvent;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 검색용 메모리 컬럼 인덱스, searchByExpression과 같은 결과를 DB 없이 만든다.
+ * id/age는 long[]/int[], 팀은 사전 코드(int[]), username은 해시 인덱스로 보관한다.
+ * 커밋된 단건 변경 이벤트로 갱신하고, 벌크 연산처럼 무엇이 바뀌었는지 모르는 변경 후에는
+ * 다시 적재가 끝날 때까지 stale 상태로 JPA 조회를 사용한다.
+ * 이벤트가 오지 않는 변경(다른 노드, DB 직접 변경)은 주기적으로 회원 수/최근 수정 시각을 DB와 비교해서 찾고,
+ * 그것으로도 알 수 없는 변경(다른 노드의 팀 이름 변경 등)은 전체 재적재 주기로 맞춘다.
+ * querydsl.columnar-index.enabled=false(기본)면 항상 JPA를 사용한다.
+ */
+@Slf4j
+@Component
+public class MemberColumnarIndex implements DisposableBean {
+
+    private final boolean enabled;
+    private final MemberJpaRepository memberJpaRepository;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTx;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Columns columns = new Columns();
+    private volatile boolean stale = true;
+    //적재 중에 들어온 이벤트, 새 인덱스에 다시 적용한다.
+    private List<EntityChangedEvent> pendingDuringReload;
+    private final AtomicBoolean reloadRequested = new AtomicBoolean();
+    //테스트에서 적재 시점을 제어하기 위해 package-private
+    final ExecutorService reloadExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "member-columnar-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MemberColumnarIndex(@Value("${querydsl.columnar-index.enabled:false}") boolean enabled,
+                               MemberJpaRepository memberJpaRepository, JPAQueryFactory queryFactory,
+                               PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.memberJpaRepository = memberJpaRepository;
+        this.queryFactory = queryFactory;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public List<MemberTeamDTO> search(MemberSearchCondition condition) {
+        return search(condition, memberJpaRepository::searchByExpression);
+    }
+
+    //사용하지 않거나 stale이면 fallback(JPA 조회, 캐시 등)으로 처리한다.
+    public List<MemberTeamDTO> search(MemberSearchCondition condition,
+                                      Function<MemberSearchCondition, List<MemberTeamDTO>> fallback) {
+        if (enabled && !stale) {
+            lock.readLock().lock();
+            try {
+                if (!stale) {
+                    return columns.search(condition.normalized());
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return fallback.apply(condition);
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            requestReload();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!enabled || (event.getEntityType() != Member.class && event.getEntityType() != Team.class)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringReload != null) {
+                pendingDuringReload.add(event);
+            }
+            if (!columns.apply(event)) {
+                stale = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (stale) {
+            requestReload();
+        }
+    }
+
+    //회원 수나 최근 수정 시각이 인덱스와 다르면 이벤트 없이 바뀐 것이므로 다시 적재한다.
+    //로컬 커밋 직후 이벤트 처리 전에 확인하면 불필요한 적재가 한 번 더 일어날 수 있다.
+    @Scheduled(fixedDelayString = "${querydsl.columnar-index.check-interval-millis:30000}",
+            initialDelayString = "${querydsl.columnar-index.check-interval-millis:30000}")
+    public void checkVersion() {
+        if (!enabled || stale) {
+            return;
+        }
+        Version current = readOnlyTx.execute(status -> Version.of(queryFactory
+                .select(member.count(), member.lastModifiedTime.max())
+                .from(member)
+                .fetchOne()));
+        boolean drifted;
+        lock.writeLock().lock();
+        try {
+            drifted = !stale && pendingDuringReload == null && !columns.isUpToDate(current);
+            if (drifted) {
+                stale = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (drifted) {
+            log.info("member columnar index is behind the database, reloading");
+            requestReload();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.columnar-index.reload-interval-millis:600000}",
+            initialDelayString = "${querydsl.columnar-index.reload-interval-millis:600000}")
+    public void scheduledReload() {
+        if (enabled) {
+            requestReload();
+        }
+    }
+
+    //이미 요청된 적재가 실행 전이면 합쳐진다.
+    public void requestReload() {
+        if (reloadRequested.compareAndSet(false, true)) {
+            reloadExecutor.execute(() -> {
+                reloadRequested.set(false);
+                try {
+                    reload();
+                } catch (Exception e) {
+                    log.warn("member columnar index reload failed", e);
+                }
+            });
+        }
+    }
+
+    //전체 적재, 적재하는 동안 들어온 변경은 교체 직전에 새 인덱스에 적용한다.
+    public void reload() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingDuringReload = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Columns loaded = new Columns();
+        try {
+            readOnlyTx.executeWithoutResult(status -> {
+                //적재 시작 전 수정 시각, 이후 변경은 이벤트로 다시 반영된다.
+                loaded.lastModified = queryFactory.select(member.lastModifiedTime.max()).from(member).fetchOne();
+                for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+                    loaded.putTeam(row.get(team.id), row.get(team.name));
+                }
+            });
+            memberJpaRepository.streamByExpression(new MemberSearchCondition(), loaded::upsert);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        boolean consistent = true;
+        lock.writeLock().lock();
+        try {
+            for (EntityChangedEvent event : pendingDuringReload) {
+                consistent &= loaded.apply(event);
+            }
+            pendingDuringReload = null;
+            columns = loaded;
+            stale = !consistent;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("member columnar index loaded: {} members in {}ms", loaded.liveCount,
+                (System.nanoTime() - start) / 1_000_000);
+        if (!consistent) {
+            requestReload();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        reloadExecutor.shutdownNow();
+    }
+
+    private static class Version {
+        private final long memberCount;
+        private final LocalDateTime lastModified;
+
+        private Version(long memberCount, LocalDateTime lastModified) {
+            this.memberCount = memberCount;
+            this.lastModified = lastModified;
+        }
+
+        private static Version of(Tuple row) {
+            Long count = row == null ? null : row.get(member.count());
+            return new Version(count == null ? 0 : count, row == null ? null : row.get(member.lastModifiedTime.max()));
+        }
+    }
+
+    /**
+     * 컬럼 저장소, 호출하는 쪽에서 lock을 잡는다.
+     * 삭제는 alive만 끄고 다음 적재 때 정리된다.
+     */
+    private static class Columns {
+        private static final int NO_TEAM = -1;
+
+        private long[] ids = new long[1024];
+        private int[] ages = new int[1024];
+        private int[] teamCodes = new int[1024];
+        private String[] usernames = new String[1024];
+        private boolean[] alive = new boolean[1024];
+        private int size;
+        private int liveCount;
+        //반영된 회원 중 가장 최근 수정 시각
+        private LocalDateTime lastModified;
+        private final Map<Long, Integer> rowById = new HashMap<>();
+        private final Map<String, int[]> rowsByUsername = new HashMap<>();
+
+        //팀 사전, 코드 -> id/이름
+        private long[] teamIds = new long[64];
+        private String[] teamNames = new String[64];
+        private int teamCount;
+        private final Map<Long, Integer> teamCodeById = new HashMap<>();
+
+        //반영할 수 없는 변경(벌크, 모르는 팀)이면 false
+        boolean apply(EntityChangedEvent event) {
+            if (event.isBulk()) {
+                return false;
+            }
+            Object entity = event.getEntity();
+            if (entity instanceof Team) {
+                Team changed = (Team) entity;
+                if (event.getChangeType() == EntityChangedEvent.ChangeType.REMOVE) {
+                    //FK 때문에 소속 회원은 먼저 이동/삭제되어 있다. 이름만 검색에서 빠지도록 비운다.
+                    Integer code = teamCodeById.get(changed.getId());
+                    if (code != null) {
+                        teamNames[code] = null;
+                    }
+                } else {
+                    putTeam(changed.getId(), changed.getName());
+                }
+                return true;
+            }
+            Member changed = (Member) entity;
+            if (event.getChangeType() == EntityChangedEvent.ChangeType.REMOVE) {
+                remove(changed.getId());
+                return true;
+            }
+            //team은 프록시일 수 있지만 id 조회는 초기화하지 않는다.
+            Long teamId = changed.getTeam() == null ? null : changed.getTeam().getId();
+            if (teamId != null && !teamCodeById.containsKey(teamId)) {
+                return false;
+            }
+            upsert(changed.getId(), changed.getUsername(), changed.getAge(), teamId);
+            LocalDateTime modified = changed.getLastModifiedTime();
+            if (modified != null && (lastModified == null || modified.isAfter(lastModified))) {
+                lastModified = modified;
+            }
+            return true;
+        }
+
+        boolean isUpToDate(Version current) {
+            if (current.memberCount != liveCount) {
+                return false;
+            }
+            //DB 컬럼 정밀도에 따라 반올림될 수 있으므로 밀리초 단위로 비교한다.
+            return current.lastModified == null
+                    || (lastModified != null && !current.lastModified.truncatedTo(ChronoUnit.MILLIS)
+                    .isAfter(lastModified.truncatedTo(ChronoUnit.MILLIS)));
+        }
+
+        void putTeam(Long teamId, String name) {
+            Integer code = teamCodeById.get(teamId);
+            if (code == null) {
+                if (teamCount == teamIds.length) {
+                    teamIds = Arrays.copyOf(teamIds, teamCount * 2);
+                    teamNames = Arrays.copyOf(teamNames, teamCount * 2);
+                }
+                code = teamCount++;
+                teamIds[code] = teamId;
+                teamCodeById.put(teamId, code);
+            }
+            teamNames[code] = name;
+        }
+
+        //팀 조회 이후에 생긴 팀도 있을 수 있으므로 행의 팀 정보로 사전을 채운다.
+        void upsert(MemberTeamDTO row) {
+            if (row.getTeamId() != null) {
+                putTeam(row.getTeamId(), row.getTeamName());
+            }
+            upsert(row.getMemberId(), row.getUsername(), row.getAge(), row.getTeamId());
+        }
+
+        void upsert(Long id, String username, int age, Long teamId) {
+            Integer row = rowById.get(id);
+            if (row == null) {
+                if (size == ids.length) {
+                    grow();
+                }
+                row = size++;
+                ids[row] = id;
+                alive[row] = true;
+                liveCount++;
+                rowById.put(id, row);
+            } else {
+                unindexUsername(usernames[row], row);
+            }
+            ages[row] = age;
+            teamCodes[row] = teamId == null ? NO_TEAM : teamCodeById.get(teamId);
+            usernames[row] = username;
+            indexUsername(username, row);
+        }
+
+        void remove(Long id) {
+            Integer row = rowById.remove(id);
+            if (row != null) {
+                alive[row] = false;
+                liveCount--;
+                unindexUsername(usernames[row], row);
+            }
+        }
+
+        List<MemberTeamDTO> search(MemberSearchCondition condition) {
+            boolean[] teamMatches = null;
+            if (condition.getTeamName() != null) {
+                teamMatches = new boolean[teamCount];
+                boolean any = false;
+                for (int code = 0; code < teamCount; code++) {
+                    teamMatches[code] = condition.getTeamName().equals(teamNames[code]);
+                    any |= teamMatches[code];
+                }
+                if (!any) {
+                    return new ArrayList<>();
+                }
+            }
+            int ageGoe = condition.getAgeGoe() == null ? Integer.MIN_VALUE : condition.getAgeGoe();
+            int ageLoe = condition.getAgeLoe() == null ? Integer.MAX_VALUE : condition.getAgeLoe();
+
+            List<MemberTeamDTO> result = new ArrayList<>();
+            if (condition.getUsername() != null) {
+                int[] rows = rowsByUsername.get(condition.getUsername());
+                if (rows != null) {
+                    for (int row : rows) {
+                        addIfMatches(result, row, teamMatches, ageGoe, ageLoe);
+                    }
+                }
+                return result;
+            }
+            for (int row = 0; row < size; row++) {
+                addIfMatches(result, row, teamMatches, ageGoe, ageLoe);
+            }
+            return result;
+        }
+
+        private void addIfMatches(List<MemberTeamDTO> result, int row, boolean[] teamMatches, int ageGoe, int ageLoe) {
+            int age = ages[row];
+            if (!alive[row] || age < ageGoe || age > ageLoe) {
+                return;
+            }
+            int code = teamCodes[row];
+            if (teamMatches != null && (code == NO_TEAM || !teamMatches[code])) {
+                return;
+            }
+            result.add(new MemberTeamDTO(ids[row], usernames[row], age,
+                    code == NO_TEAM ? null : teamIds[code],
+                    code == NO_TEAM ? null : teamNames[code]));
+        }
+
+        private void indexUsername(String username, int row) {
+            if (username == null) {
+                return;
+            }
+            int[] rows = rowsByUsername.get(username);
+            if (rows == null) {
+                rowsByUsername.put(username, new int[]{row});
+            } else {
+                int[] grown = Arrays.copyOf(rows, rows.length + 1);
+                grown[rows.length] = row;
+                rowsByUsername.put(username, grown);
+            }
+        }
+
+        private void unindexUsername(String username, int row) {
+            int[] rows = username == null ? null : rowsByUsername.get(username);
+            if (rows == null) {
+                return;
+            }
+            int[] remaining = Arrays.stream(rows).filter(r -> r != row).toArray();
+            if (remaining.length == 0) {
+                rowsByUsername.remove(username);
+            } else {
+                rowsByUsername.put(username, remaining);
+            }
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            teamCodes = Arrays.copyOf(teamCodes, capacity);
+            usernames = Arrays.copyOf(usernames, capacity);
+            alive = Arrays.copyOf(alive, capacity);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.listener.AfterCommitOnce;
+import study.querydsl.entity.listener.EntityChangedEvent;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * /v1/members 검색 결과 캐시, 정규화된 검색 조건을 키로 사용한다.
+ * 같은 키로 동시에 miss가 나면 Caffeine이 한 번만 조회하고 나머지는 그 결과를 기다린다.
+ * Member/Team이 변경되면 커밋 후 전체를 비운다.
+ */
+@Component
+public class MemberSearchCache {
+
+    private final Cache<MemberSearchCondition, List<MemberTeamDTO>> cache;
+    //조회 도중 무효화가 일어났는지 확인하기 위한 세대 번호
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberSearchCache(@Value("${querydsl.search-cache.ttl-millis:10000}") long ttlMillis,
+                             @Value("${querydsl.search-cache.max-size:100}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
+    }
+
+    public List<MemberTeamDTO> get(MemberSearchCondition condition,
+                                   Function<MemberSearchCondition, List<MemberTeamDTO>> loader) {
+        MemberSearchCondition key = condition.normalized();
+        long before = generation.get();
+        List<MemberTeamDTO> result = cache.get(key, k -> List.copyOf(loader.apply(k)));
+        if (generation.get() != before) {
+            //조회 중에 변경이 커밋됐으면 이번 결과는 캐시에 남기지 않는다.
+            cache.invalidate(key);
+        }
+        return result;
+    }
+
+    //엔티티마다 이벤트가 오므로 트랜잭션당 한 번만 등록해서 커밋 후 비운다.
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getEntityType() == Member.class || event.getEntityType() == Team.class) {
+            AfterCommitOnce.register(this, this::invalidateAll);
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,251 @@
+package study.querydsl.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.listener.AfterCommitOnce;
+import study.querydsl.entity.listener.EntityChangedEvent;
+
+import java.sql.PreparedStatement;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * team_stats 유지
+ * - 엔티티 insert/update/delete(changeTeam 포함)는 hibernate post 이벤트에서 팀별 증감만 모아두고,
+ *   커밋 직전(flush 이후) 같은 트랜잭션에서 팀마다 update 한 번으로 반영한다. min/max는 (team_id, age) 인덱스로 다시 구한다.
+ * - 벌크 update/delete는 바뀐 팀을 알 수 없으므로 커밋 후 전체 재계산을 요청한다. 연속 요청은 한 번으로 합쳐진다.
+ * - 주기적으로 전체 재계산해서 JDBC insert 등 hibernate를 거치지 않은 변경도 맞춘다.
+ * HibernateConfig에서 이벤트 리스너로 등록한다.
+ */
+@Slf4j
+@Component
+public class TeamStatsMaintainer implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, DisposableBean {
+
+    private static final String APPLY_DELTA = "update team_stats set member_count = member_count + ?, age_sum = age_sum + ?," +
+            " age_min = (select min(m.age) from member m where m.team_id = ?)," +
+            " age_max = (select max(m.age) from member m where m.team_id = ?)" +
+            " where team_id = ?";
+    //재계산과 겹쳐 행이 먼저 생겨도 PK 충돌 없이 덮어쓴다. (H2 merge ... key)
+    private static final String UPSERT_TEAM = "merge into team_stats (team_id, member_count, age_sum, age_min, age_max) key (team_id)" +
+            " select ?, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age) from member m where m.team_id = ?";
+    private static final String DELETE_TEAM = "delete from team_stats where team_id = ?";
+    //전체 재계산도 행을 지우지 않고 제자리에서 덮어쓴다. 증분 반영이 기다리던 행이 사라지지 않는다.
+    private static final String UPSERT_ALL = "merge into team_stats (team_id, member_count, age_sum, age_min, age_max) key (team_id)" +
+            " select t.team_id, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)" +
+            " from team t left join member m on m.team_id = t.team_id group by t.team_id";
+    private static final String DELETE_ORPHANS = "delete from team_stats s" +
+            " where not exists (select 1 from team t where t.team_id = s.team_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<SessionImplementor, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean reconcileRequested = new AtomicBoolean();
+    private final ExecutorService reconcileExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "team-stats-reconcile");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TeamStatsMaintainer(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Member) {
+            Object[] state = event.getState();
+            EntityPersister persister = event.getPersister();
+            pending(event.getSession()).add(teamId(persister, state), 1, age(persister, state));
+        } else if (entity instanceof Team) {
+            //회원이 없는 팀도 0건 통계 행을 만든다.
+            pending(event.getSession()).add((Long) event.getId(), 0, 0);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            //detached update는 이전 값을 모른다.
+            pending(event.getSession()).reconcileAll = true;
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Object[] state = event.getState();
+        Long oldTeamId = teamId(persister, oldState);
+        Long newTeamId = teamId(persister, state);
+        int oldAge = age(persister, oldState);
+        int newAge = age(persister, state);
+        if (oldAge == newAge && Objects.equals(oldTeamId, newTeamId)) {
+            return;
+        }
+        Pending sessionPending = pending(event.getSession());
+        sessionPending.add(oldTeamId, -1, -oldAge);
+        sessionPending.add(newTeamId, 1, newAge);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Member) {
+            Object[] state = event.getDeletedState();
+            EntityPersister persister = event.getPersister();
+            pending(event.getSession()).add(teamId(persister, state), -1, -age(persister, state));
+        } else if (entity instanceof Team) {
+            pending(event.getSession()).deletedTeams.add((Long) event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    //단건 이벤트는 synchronization을 등록하지 않고, 벌크는 트랜잭션당 한 번만 등록한다.
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.isBulk() && (event.getEntityType() == Member.class || event.getEntityType() == Team.class)) {
+            AfterCommitOnce.register(this, this::requestReconcile);
+        }
+    }
+
+    //이미 요청된 재계산이 실행 전이면 합쳐진다.
+    public void requestReconcile() {
+        if (reconcileRequested.compareAndSet(false, true)) {
+            reconcileExecutor.execute(() -> {
+                reconcileRequested.set(false);
+                try {
+                    reconcile();
+                } catch (Exception e) {
+                    log.warn("team stats reconcile failed", e);
+                }
+            });
+        }
+    }
+
+    //전체 재계산, 반영된 팀 수를 반환한다.
+    @Scheduled(fixedDelayString = "${querydsl.team-stats.reconcile-interval-millis:600000}",
+            initialDelayString = "${querydsl.team-stats.reconcile-interval-millis:600000}")
+    public int reconcile() {
+        long start = System.nanoTime();
+        Integer teams = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(DELETE_ORPHANS);
+            return jdbcTemplate.update(UPSERT_ALL);
+        });
+        log.info("team stats reconciled: {} teams in {}ms", teams, (System.nanoTime() - start) / 1_000_000);
+        return teams == null ? 0 : teams;
+    }
+
+    @Override
+    public void destroy() {
+        reconcileExecutor.shutdownNow();
+    }
+
+    //세션(트랜잭션)마다 처음 변경될 때 커밋 전/후 처리를 등록한다.
+    private Pending pending(EventSource session) {
+        return pending.computeIfAbsent(session, s -> {
+            Pending created = new Pending();
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completing -> {
+                pending.remove(s);
+                apply(completing, created);
+            });
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> {
+                pending.remove(s);
+                if (success && created.reconcileAll) {
+                    requestReconcile();
+                }
+            });
+            return created;
+        });
+    }
+
+    private void apply(SessionImplementor session, Pending changes) {
+        if (changes.reconcileAll) {
+            return;
+        }
+        session.doWork(connection -> {
+            try (PreparedStatement applyDelta = connection.prepareStatement(APPLY_DELTA);
+                 PreparedStatement upsertTeam = connection.prepareStatement(UPSERT_TEAM);
+                 PreparedStatement deleteTeam = connection.prepareStatement(DELETE_TEAM)) {
+                //락 순서를 맞추기 위해 team_id 순으로 반영
+                for (Map.Entry<Long, long[]> entry : changes.deltas.entrySet()) {
+                    Long teamId = entry.getKey();
+                    if (changes.deletedTeams.contains(teamId)) {
+                        continue;
+                    }
+                    applyDelta.setLong(1, entry.getValue()[0]);
+                    applyDelta.setLong(2, entry.getValue()[1]);
+                    applyDelta.setLong(3, teamId);
+                    applyDelta.setLong(4, teamId);
+                    applyDelta.setLong(5, teamId);
+                    if (applyDelta.executeUpdate() == 0) {
+                        //통계 행이 없던 팀은 현재 값으로 새로 만든다.
+                        upsertTeam.setLong(1, teamId);
+                        upsertTeam.setLong(2, teamId);
+                        upsertTeam.executeUpdate();
+                    }
+                }
+                for (Long teamId : changes.deletedTeams) {
+                    deleteTeam.setLong(1, teamId);
+                    deleteTeam.executeUpdate();
+                }
+            }
+        });
+    }
+
+    private static Long teamId(EntityPersister persister, Object[] state) {
+        Team team = (Team) state[persister.getEntityMetamodel().getPropertyIndex("team")];
+        //프록시여도 id 조회는 초기화하지 않는다.
+        return team == null ? null : team.getId();
+    }
+
+    private static int age(EntityPersister persister, Object[] state) {
+        return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+    }
+
+    private static class Pending {
+        private final Map<Long, long[]> deltas = new TreeMap<>();
+        private final Set<Long> deletedTeams = new HashSet<>();
+        private boolean reconcileAll;
+
+        private void add(Long teamId, long count, long ageSum) {
+            if (teamId == null) {
+                return;
+            }
+            long[] delta = deltas.computeIfAbsent(teamId, id -> new long[2]);
+            delta[0] += count;
+            delta[1] += ageSum;
+        }
+    }
+}
@@ -4,12 +4,14 @@ import com.querydsl.core.Tuple;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Commit;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.support.QueryCountExtension;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -22,6 +24,7 @@ import static study.querydsl.entity.QTeam.team;
 
 @SpringBootTest
 @Transactional
+@ExtendWith(QueryCountExtension.class)
 public class QuerydslJoinTest {
 
     @Autowired
@@ -169,4 +172,29 @@ public class QuerydslJoinTest {
         loaded = emf.getPersistenceUnitUtil().isLoaded(memberWithFetchJoin.getTeam());
         assertThat(loaded).as("패치 조인 적용").isTrue();
     }
+
+    /**
+     * fetch join은 한 번, lazy 로딩은 default_batch_fetch_size 덕분에 팀을 한 번의 IN 쿼리로 가져온다.
+     */
+    @Test
+    public void fetchJoin_query_count() throws Exception{
+        List<Member> fetchJoin = queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .fetch();
+        for (Member findMember : fetchJoin) {
+            findMember.getTeam().getName();
+        }
+        QueryCountExtension.assertMaxQueries(1);
+
+        em.clear();
+        QueryCountExtension.reset();
+        List<Member> lazy = queryFactory
+                .selectFrom(member)
+                .fetch();
+        for (Member findMember : lazy) {
+            findMember.getTeam().getName();
+        }
+        QueryCountExtension.assertMaxQueries(2);
+    }
 }
@@ -0,0 +1,109 @@
+package study.querydsl.Repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+//청크마다 별도 트랜잭션으로 커밋되므로 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+@SpringBootTest
+class ChunkedBulkExecutorTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate tx;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    ChunkedBulkExecutor chunkedBulkExecutor;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    Long teamId;
+
+    @BeforeEach
+    public void beforeEach(){
+        teamId = tx.execute(status -> {
+            Team bulkTeam = new Team("bulkTeam");
+            em.persist(bulkTeam);
+            for (int i = 0; i < 100; i++) {
+                em.persist(new Member("member" + i, i, bulkTeam));
+            }
+            return bulkTeam.getId();
+        });
+    }
+
+    @AfterEach
+    public void afterEach(){
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.team.id.eq(teamId)).execute();
+            queryFactory.delete(team).where(team.id.eq(teamId)).execute();
+        });
+    }
+
+    @Test
+    public void chunkedUpdate() throws Exception{
+        //when
+        long count = chunkedBulkExecutor.update(member, member.id, inTeam().and(member.age.lt(28)),
+                clause -> clause.set(member.username, "비회원"), 10, 3);
+        //then
+        assertThat(count).isEqualTo(28);
+        assertThat(queryFactory.select(member.count()).from(member)
+                .where(inTeam(), member.username.eq("비회원")).fetchOne()).isEqualTo(28);
+    }
+
+    @Test
+    public void chunkedDelete() throws Exception{
+        //when
+        long count = chunkedBulkExecutor.delete(member, member.id, inTeam().and(member.age.gt(28)), 7, 2);
+        //then
+        assertThat(count).isEqualTo(71);
+        assertThat(queryFactory.select(member.count()).from(member).where(inTeam()).fetchOne()).isEqualTo(29);
+    }
+
+    //이미 읽어둔 엔티티도 실행 후 다시 조회하면 변경된 값이어야 한다.
+    @Test
+    public void clearsCallerPersistenceContext() throws Exception{
+        //given
+        TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+
+        //when
+        String username = readOnlyTx.execute(status -> {
+            Member loaded = queryFactory.selectFrom(member).where(inTeam(), member.age.eq(5)).fetchOne();
+            chunkedBulkExecutor.update(member, member.id, inTeam(),
+                    clause -> clause.set(member.username, "비회원"), 10, 2);
+            return em.find(Member.class, loaded.getId()).getUsername();
+        });
+
+        //then
+        assertThat(username).isEqualTo("비회원");
+    }
+
+    @Test
+    public void rejectWriteTransaction() throws Exception{
+        //when //then
+        tx.executeWithoutResult(status -> assertThatThrownBy(() ->
+                chunkedBulkExecutor.delete(member, member.id, inTeam(), 10, 2))
+                .isInstanceOf(IllegalStateException.class));
+        assertThat(queryFactory.select(member.count()).from(member).where(inTeam()).fetchOne()).isEqualTo(100);
+    }
+
+    private BooleanExpression inTeam() {
+        return member.team.id.eq(teamId);
+    }
+}
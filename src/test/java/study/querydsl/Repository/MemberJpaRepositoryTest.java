@@ -2,21 +2,35 @@ package study.querydsl.Repository;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberFetchPlan;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSlice;
+import study.querydsl.dto.MemberSortKey;
 import study.querydsl.dto.MemberTeamDTO;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.support.QueryCountExtension;
 
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 
 @SpringBootTest
+@ExtendWith(QueryCountExtension.class)
 @Transactional
 class MemberJpaRepositoryTest {
     @Autowired
@@ -74,4 +88,197 @@ class MemberJpaRepositoryTest {
         Assertions.assertThat(result).extracting("username")
                 .contains("member4");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchTemplateTest() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+        condition.setTeamName("teamB");
+        //when
+        List<MemberTeamDTO> result = memberJpaRepository.searchByTemplate(condition);
+        //then
+        Assertions.assertThat(result)
+                .containsExactlyInAnyOrderElementsOf(memberJpaRepository.searchByExpression(condition));
+    }
+
+    @Test
+    public void searchDirectProjectionTest() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+        //when
+        List<MemberTeamDTO> direct = memberJpaRepository.searchByDirectProjection(condition);
+        List<MemberTeamDTO> jdbc = memberJpaRepository.searchByJdbc(condition);
+        //then
+        List<MemberTeamDTO> expected = memberJpaRepository.searchByExpression(condition);
+        Assertions.assertThat(direct).containsExactlyInAnyOrderElementsOf(expected);
+        Assertions.assertThat(jdbc).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    public void searchByCursorTest() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+        //when
+        MemberSlice first = memberJpaRepository.searchByCursor(condition, MemberSortKey.AGE, null, 2);
+        MemberSlice second = memberJpaRepository.searchByCursor(condition, MemberSortKey.AGE, first.getNextCursor(), 2);
+        //then
+        Assertions.assertThat(first.getContent()).extracting("username")
+                .containsExactly("member2", "member3");
+        Assertions.assertThat(first.isHasNext()).isTrue();
+        Assertions.assertThat(second.getContent()).extracting("username")
+                .containsExactly("member4");
+        Assertions.assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void searchByCursorInvalidTest() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        String nullAge = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("AGE|1|N".getBytes(StandardCharsets.UTF_8));
+        //when //then
+        Assertions.assertThatThrownBy(() -> memberJpaRepository.searchByCursor(condition, MemberSortKey.AGE, nullAge, 2))
+                .isInstanceOf(InvalidCursorException.class)
+                .hasMessageNotContaining(nullAge);
+        Assertions.assertThatThrownBy(() -> memberJpaRepository.searchByCursor(condition, MemberSortKey.AGE, "!!", 2))
+                .isInstanceOf(InvalidCursorException.class)
+                .hasMessageNotContaining("!!");
+        String idCursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("ID|1|N".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertThatThrownBy(() -> memberJpaRepository.searchByCursor(condition, MemberSortKey.AGE, idCursor, 2))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    public void searchPageComplexTest() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 3);
+        //when
+        Page<MemberTeamDTO> result = memberJpaRepository.searchPageComplex(condition, pageRequest);
+        //then
+        Assertions.assertThat(result.getSize()).isEqualTo(3);
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(4);
+        Assertions.assertThat(result.getContent()).extracting("username")
+                .containsExactly("member1", "member2", "member3");
+    }
+
+    @Test
+    public void searchPageSortTest() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(40);
+        PageRequest pageRequest = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "age"));
+        //when
+        Page<MemberTeamDTO> simple = memberJpaRepository.searchPageSimple(condition, pageRequest);
+        Page<MemberTeamDTO> complex = memberJpaRepository.searchPageComplex(condition, pageRequest);
+        //then
+        Assertions.assertThat(simple.getContent()).extracting("username")
+                .containsExactly("member2", "member1");
+        Assertions.assertThat(complex.getContent()).extracting("username")
+                .containsExactly("member2", "member1");
+        Assertions.assertThat(complex.getTotalElements()).isEqualTo(4);
+    }
+
+    //첫 페이지가 size보다 작으면 count 쿼리 없이 content 쿼리 하나로 끝난다.
+    @Test
+    public void searchPageComplexSkipCountTest() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(25);
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        //when
+        QueryCountExtension.reset();
+        Page<MemberTeamDTO> result = memberJpaRepository.searchPageComplex(condition, pageRequest);
+        //then
+        QueryCountExtension.assertMaxQueries(1);
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(2);
+        Assertions.assertThat(result.getContent()).extracting("username")
+                .containsExactly("member3", "member4");
+    }
+
+    @Test
+    public void streamByExpressionTest() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        List<MemberTeamDTO> result = new ArrayList<>();
+        //when
+        long count = memberJpaRepository.streamByExpression(condition, result::add);
+        //then
+        Assertions.assertThat(count).isEqualTo(2);
+        Assertions.assertThat(result).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2");
+    }
+
+    @Test
+    public void findByExpressionReadOnlyTest() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        //when
+        List<Member> result = memberJpaRepository.findByExpressionReadOnly(condition);
+        result.forEach(m -> m.changeUsername("changed"));
+        em.flush();
+        em.clear();
+        //then
+        Assertions.assertThat(result).extracting("username").containsOnly("changed");
+        Assertions.assertThat(memberJpaRepository.searchByExpression(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2");
+    }
+
+    @Test
+    public void streamStatelessTest() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        List<Member> result = new ArrayList<>();
+        //when
+        long count = memberJpaRepository.streamStateless(condition, result::add);
+        //then
+        Assertions.assertThat(count).isEqualTo(2);
+        Assertions.assertThat(result).extracting("username")
+                .containsExactlyInAnyOrder("member3", "member4");
+        Assertions.assertThat(result).extracting(m -> m.getTeam().getName()).containsOnly("teamB");
+        Assertions.assertThat(result).noneMatch(em::contains);
+    }
+
+    @Test
+    public void findByExpressionFetchPlanTest() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(40);
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+
+        //when member-only
+        QueryCountExtension.reset();
+        List<Member> memberOnly = memberJpaRepository.findByExpression(condition, MemberFetchPlan.of("member-only"));
+        //then
+        QueryCountExtension.assertMaxQueries(1);
+        Assertions.assertThat(memberOnly).filteredOn(m -> m.getTeam() != null).noneMatch(m -> util.isLoaded(m.getTeam()));
+        em.clear();
+
+        //when member+team
+        QueryCountExtension.reset();
+        List<Member> memberTeam = memberJpaRepository.findByExpression(condition, MemberFetchPlan.of("member+team"));
+        //then
+        QueryCountExtension.assertMaxQueries(1);
+        Assertions.assertThat(memberTeam).filteredOn(m -> m.getTeam() != null).allMatch(m -> util.isLoaded(m.getTeam()));
+        Assertions.assertThat(memberTeam).filteredOn(m -> m.getTeam() != null).noneMatch(m -> Hibernate.isInitialized(m.getTeam().getMembers()));
+        em.clear();
+
+        //when team+members
+        QueryCountExtension.reset();
+        List<Member> teamMembers = memberJpaRepository.findByExpression(condition, MemberFetchPlan.of("team+members"));
+        //then
+        QueryCountExtension.assertMaxQueries(2);
+        Assertions.assertThat(teamMembers).filteredOn(m -> m.getTeam() != null).allMatch(m -> Hibernate.isInitialized(m.getTeam().getMembers()));
+        Assertions.assertThat(teamMembers).filteredOn(m -> m.getTeam() != null).allMatch(m -> m.getTeam().getMembers().contains(m));
+    }
+}
@@ -0,0 +1,132 @@
+package study.querydsl.Repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.scheduler.Scheduler;
+import study.querydsl.config.InstrumentedJPAQueryFactory;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+//구독마다 별도 EntityManager를 쓰므로 커밋된 데이터로 테스트하고 직접 정리한다.
+@SpringBootTest
+class MemberReactiveRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate tx;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberReactiveRepository memberReactiveRepository;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    InstrumentedJPAQueryFactory instrumentedQueryFactory;
+    @Autowired
+    @Qualifier("jdbcScheduler")
+    Scheduler jdbcScheduler;
+    @Autowired
+    MeterRegistry registry;
+
+    @BeforeEach
+    public void beforeEach(){
+        tx.executeWithoutResult(status -> {
+            Team reactiveTeam = new Team("reactiveTeam");
+            em.persist(reactiveTeam);
+            for (int i = 0; i < 30; i++) {
+                em.persist(new Member("reactive" + i, i, reactiveTeam));
+            }
+        });
+    }
+
+    @AfterEach
+    public void afterEach(){
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("reactive")).execute();
+            queryFactory.delete(team).where(team.name.eq("reactiveTeam")).execute();
+        });
+    }
+
+    @Test
+    public void searchByExpression() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("reactiveTeam");
+        condition.setAgeGoe(10);
+        //when
+        List<MemberTeamDTO> result = memberReactiveRepository.searchByExpression(condition)
+                .collectList()
+                .block();
+        //then
+        assertThat(result).hasSize(20);
+        assertThat(result).extracting("teamName").containsOnly("reactiveTeam");
+    }
+
+    //jdbc 스레드에서 실행되어도 호출한 repository 메서드로 태그된다.
+    @Test
+    public void recordsRepositoryMethodTag() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("reactiveTeam");
+        //when
+        memberReactiveRepository.searchByExpression(condition).collectList().block();
+        //then
+        assertThat(registry.find("querydsl.query")
+                .tags("method", "MemberReactiveRepository.searchByExpression", "op", "stream")
+                .timer()).isNotNull();
+    }
+
+    @Test
+    public void cancelAfterFirstRows() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("reactiveTeam");
+        List<SessionImplementor> opened = new ArrayList<>();
+        MemberReactiveRepository repository = new MemberReactiveRepository(
+                trackingEmf(opened), instrumentedQueryFactory, jdbcScheduler, 2);
+        //when
+        List<MemberTeamDTO> result = repository.searchByExpression(condition)
+                .take(5)
+                .collectList()
+                .block();
+        //then
+        assertThat(result).hasSize(5);
+        assertThat(opened).hasSize(1);
+        SessionImplementor session = opened.get(0);
+        assertThat(session.isOpen()).isFalse();
+        assertThat(session.getJdbcCoordinator().getResourceRegistry().hasRegisteredResources()).isFalse();
+    }
+
+    //구독이 연 EntityManager를 확인하기 위해 생성 시점에 기록한다.
+    private EntityManagerFactory trackingEmf(List<SessionImplementor> opened) {
+        return (EntityManagerFactory) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{EntityManagerFactory.class}, (proxy, method, args) -> {
+                    Object result = method.invoke(emf, args);
+                    if (result instanceof EntityManager) {
+                        opened.add(((EntityManager) result).unwrap(SessionImplementor.class));
+                    }
+                    return result;
+                });
+    }
+}
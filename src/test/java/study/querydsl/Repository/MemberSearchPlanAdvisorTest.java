@@ -0,0 +1,34 @@
+package study.querydsl.Repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchPlanAdvisorTest {
+
+    @Autowired MemberSearchPlanAdvisor memberSearchPlanAdvisor;
+
+    @Test
+    public void explainAllShapes() throws Exception{
+        //when
+        List<MemberSearchPlanAdvisor.PlanReport> reports = memberSearchPlanAdvisor.explainAll();
+        Map<String, MemberSearchPlanAdvisor.PlanReport> byShape = reports.stream()
+                .collect(Collectors.toMap(MemberSearchPlanAdvisor.PlanReport::getShape, Function.identity()));
+        //then
+        assertThat(reports).hasSize(16);
+        //조건이 없으면 full scan, username 조건은 인덱스를 사용해야 한다.
+        assertThat(byShape.get("all").isFullScan()).isTrue();
+        assertThat(byShape.get("username").isFullScan()).isFalse();
+        assertThat(byShape.get("username").getPlan()).containsIgnoringCase("idx_member_username");
+    }
+}
@@ -0,0 +1,125 @@
+package study.querydsl.Repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+//파티션은 별도 트랜잭션에서 실행되므로 커밋된 데이터로 테스트하고 직접 정리한다.
+@SpringBootTest
+class PartitionedQueryExecutorTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate tx;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PartitionedQueryExecutor partitionedQueryExecutor;
+
+    @BeforeEach
+    public void beforeEach(){
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("partitionA");
+            Team teamB = new Team("partitionB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 100; i++) {
+                em.persist(new Member("partition" + i, i, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void afterEach(){
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("partition")).execute();
+            queryFactory.delete(team).where(team.name.startsWith("partition")).execute();
+        });
+    }
+
+    @Test
+    public void aggregation() throws Exception{
+        //when
+        Long count = partitionedQueryExecutor.execute(member, member.id, inPartitionTeams(),
+                (qf, partition) -> qf.select(member.count()).from(member).where(partition).fetchOne(),
+                PartitionCombiners.sum(), 4);
+        Integer max = partitionedQueryExecutor.execute(member, member.id, inPartitionTeams(),
+                (qf, partition) -> qf.select(member.age.max()).from(member).where(partition).fetchOne(),
+                PartitionCombiners.max(), 4);
+        Double avg = partitionedQueryExecutor.execute(member, member.id, inPartitionTeams(),
+                (qf, partition) -> {
+                    Tuple t = qf.select(member.age.sum(), member.count()).from(member).where(partition).fetchOne();
+                    return PartitionCombiners.Avg.of(t.get(member.age.sum()), t.get(member.count()));
+                },
+                PartitionCombiners.avg(), 4);
+        //then
+        assertThat(count).isEqualTo(100);
+        assertThat(max).isEqualTo(99);
+        assertThat(avg).isEqualTo(49.5);
+    }
+
+    //파티션 안에서 다시 execute 해도 호출마다 풀이 따로라 막히지 않는다.
+    @Test
+    public void nestedExecute() throws Exception{
+        //when
+        Long count = partitionedQueryExecutor.execute(member, member.id, inPartitionTeams(),
+                (qf, partition) -> partitionedQueryExecutor.execute(member, member.id, partition,
+                        (inner, innerPartition) -> inner.select(member.count()).from(member).where(innerPartition).fetchOne(),
+                        PartitionCombiners.sum(), 1),
+                PartitionCombiners.sum(), 4);
+        //then
+        assertThat(count).isEqualTo(100);
+    }
+
+    @Test
+    public void groupby() throws Exception{
+        //when
+        Map<String, Double> result = partitionedQueryExecutor.execute(member, member.id, inPartitionTeams(),
+                (qf, partition) -> qf
+                        .select(team.name, member.age.sum(), member.count())
+                        .from(member)
+                        .join(member.team, team)
+                        .where(partition)
+                        .groupBy(team.name)
+                        .fetch().stream()
+                        .collect(Collectors.toMap(
+                                t -> t.get(team.name),
+                                t -> PartitionCombiners.Avg.of(t.get(member.age.sum()), t.get(member.count())))),
+                PartitionCombiners.groupByAvg(), 3);
+        //then
+        assertThat(result).containsEntry("partitionA", 49.0).containsEntry("partitionB", 50.0);
+    }
+
+    @Test
+    public void topN() throws Exception{
+        //when
+        List<Member> result = partitionedQueryExecutor.execute(member, member.id, inPartitionTeams(),
+                (qf, partition) -> qf.selectFrom(member).where(partition).orderBy(member.age.desc()).limit(3).fetch(),
+                PartitionCombiners.topN(3, Comparator.comparing(Member::getAge).reversed()), 4);
+        //then
+        assertThat(result).extracting("age").containsExactly(99, 98, 97);
+    }
+
+    private BooleanExpression inPartitionTeams() {
+        return member.username.startsWith("partition");
+    }
+}
@@ -0,0 +1,111 @@
+package study.querydsl.Repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class TeamJpaRepositoryTest {
+    @Autowired
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+    @Autowired TeamJpaRepository teamJpaRepository;
+    Long teamId;
+
+    @BeforeEach
+    public void beforeEach(){
+        queryFactory = new JPAQueryFactory(em);
+
+        Team cacheTeam = new Team("cacheTeam");
+        em.persist(cacheTeam);
+        em.persist(new Member("member1", 10, cacheTeam));
+        em.persist(new Member("member2", 20, cacheTeam));
+        teamId = cacheTeam.getId();
+
+        em.flush();
+        em.clear();
+    }
+
+    //벌크 update 후 2차 캐시/쿼리 캐시에 이전 값이 남아있으면 안된다.
+    @Test
+    public void bulkUpdateEvictsTeamCache() throws Exception{
+        //given
+        assertThat(teamJpaRepository.findByName("cacheTeam")).isPresent();
+        assertThat(em.find(Team.class, teamId).getMembers()).hasSize(2);
+        em.clear();
+        //when
+        queryFactory
+                .update(team)
+                .set(team.name, "renamedTeam")
+                .where(team.id.eq(teamId))
+                .execute();
+        queryFactory
+                .delete(member)
+                .where(member.username.eq("member2"))
+                .execute();
+        em.clear();
+        //then
+        assertThat(teamJpaRepository.findByName("cacheTeam")).isEmpty();
+        Team findTeam = em.find(Team.class, teamId);
+        assertThat(findTeam.getName()).isEqualTo("renamedTeam");
+        assertThat(findTeam.getMembers()).extracting("username").containsExactly("member1");
+    }
+
+    @Test
+    public void findPageWithMembers() throws Exception{
+        //given
+        for (int i = 0; i < 5; i++) {
+            Team pageTeam = new Team("pageTeam" + i);
+            em.persist(pageTeam);
+            em.persist(new Member("pageMember" + i + "a", i, pageTeam));
+            em.persist(new Member("pageMember" + i + "b", i, pageTeam));
+        }
+        em.flush();
+        em.clear();
+        //when
+        Page<Team> page = teamJpaRepository.findPageWithMembers(team.name.startsWith("pageTeam"), PageRequest.of(1, 2));
+        //then
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getContent()).extracting("name").containsExactly("pageTeam2", "pageTeam3");
+        assertThat(page.getContent()).allMatch(t -> Hibernate.isInitialized(t.getMembers()));
+        assertThat(page.getContent().get(0).getMembers()).extracting("username")
+                .containsExactlyInAnyOrder("pageMember2a", "pageMember2b");
+    }
+
+    @Test
+    public void findPageWithMembersSorted() throws Exception{
+        //given
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Team("pageTeam" + i));
+        }
+        em.flush();
+        em.clear();
+        //when
+        Page<Team> page = teamJpaRepository.findPageWithMembers(team.name.startsWith("pageTeam"),
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "name")));
+        //then
+        assertThat(page.getContent()).extracting("name").containsExactly("pageTeam4", "pageTeam3");
+        assertThatThrownBy(() -> teamJpaRepository.findPageWithMembers(team.name.startsWith("pageTeam"),
+                PageRequest.of(0, 2, Sort.by("members"))))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+}
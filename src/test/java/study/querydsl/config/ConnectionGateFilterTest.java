@@ -0,0 +1,38 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionGateFilterTest {
+
+    ConnectionGateFilter filter = new ConnectionGateFilter(1, 0);
+
+    @Test
+    public void asyncRequestHoldsPermitUntilComplete() throws Exception{
+        //given
+        MockHttpServletRequest asyncRequest = new MockHttpServletRequest("GET", "/v1/members/export");
+        asyncRequest.setAsyncSupported(true);
+        FilterChain startAsync = (request, response) -> request.startAsync();
+
+        //when
+        filter.doFilter(asyncRequest, new MockHttpServletResponse(), startAsync);
+        int whileStreaming = status();
+        asyncRequest.getAsyncContext().complete();
+        int afterComplete = status();
+
+        //then
+        assertThat(whileStreaming).isEqualTo(503);
+        assertThat(afterComplete).isEqualTo(200);
+    }
+
+    private int status() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/v1/members"), response, (request, res) -> {});
+        return response.getStatus();
+    }
+}
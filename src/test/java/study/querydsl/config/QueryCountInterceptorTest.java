@@ -0,0 +1,61 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.DispatcherType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryCountInterceptorTest {
+
+    MeterRegistry registry = new SimpleMeterRegistry();
+    QueryCounter queryCounter = new QueryCounter();
+    QueryCountInterceptor interceptor = new QueryCountInterceptor(queryCounter, registry, 3);
+
+    @Test
+    public void warnsOnSyncRequest() throws Exception{
+        //given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/members");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        //when
+        interceptor.preHandle(request, response, null);
+        selects(5);
+        interceptor.afterCompletion(request, response, null, null);
+
+        //then
+        assertThat(registry.find("http.server.requests.selects").summary().totalAmount()).isEqualTo(5);
+        assertThat(registry.find("http.server.requests.n_plus_one").counter().count()).isEqualTo(1);
+    }
+
+    //비동기 요청은 쿼리가 다른 스레드에서 실행되므로 기록하지 않는다.
+    @Test
+    public void skipsAsyncRequest() throws Exception{
+        //given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/members/export");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        //when
+        interceptor.preHandle(request, response, null);
+        selects(5);
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+        request.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+
+        //then
+        assertThat(registry.find("http.server.requests.selects").summary()).isNull();
+        assertThat(registry.find("http.server.requests.n_plus_one").counter()).isNull();
+        assertThat(queryCounter.snapshot().getSelects()).isEqualTo(0);
+    }
+
+    private void selects(int count) {
+        for (int i = 0; i < count; i++) {
+            queryCounter.inspect("select 1");
+        }
+    }
+}
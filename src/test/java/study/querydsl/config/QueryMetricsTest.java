@@ -0,0 +1,69 @@
+package study.querydsl.config;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.Repository.MemberJpaRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class QueryMetricsTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired MeterRegistry registry;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void beforeEach(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void recordsPerRepositoryMethod() throws Exception{
+        //when
+        memberJpaRepository.searchByExpression(new MemberSearchCondition());
+        //then
+        Timer timer = registry.find("querydsl.query")
+                .tags("method", "MemberJpaRepository.searchByExpression", "op", "fetch")
+                .timer();
+        DistributionSummary statements = registry.find("querydsl.query.statements")
+                .tags("method", "MemberJpaRepository.searchByExpression")
+                .summary();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+        assertThat(statements.totalAmount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void recordsCountQueries() throws Exception{
+        //when
+        queryFactory.selectFrom(member).fetchCount();
+        queryFactory.selectFrom(member).limit(1).fetchResults();
+        //then
+        assertThat(registry.find("querydsl.query").tags("op", "fetchCount").timer()).isNotNull();
+        DistributionSummary rows = registry.find("querydsl.query.rows").tags("op", "fetchResults").summary();
+        assertThat(rows).isNotNull();
+        assertThat(rows.totalAmount()).isGreaterThanOrEqualTo(1);
+    }
+}
@@ -0,0 +1,157 @@
+package study.querydsl.config;
+
+import org.h2.Driver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary";
+    static final String REPLICA1_URL = "jdbc:h2:mem:routing_replica1";
+    static final String REPLICA2_URL = "jdbc:h2:mem:routing_replica2";
+
+    ReplicaRoutingDataSource routing;
+    DataSource dataSource;
+
+    @AfterEach
+    public void afterEach() throws Exception {
+        routing.destroy();
+    }
+
+    @Test
+    public void readOnlyGoesToReplicas() throws Exception{
+        //given
+        setUp(0, PRIMARY_URL, REPLICA1_URL, REPLICA2_URL);
+
+        //when
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            urls.add(urlIn(true));
+        }
+
+        //then
+        assertThat(urls).containsOnly(REPLICA1_URL, REPLICA2_URL);
+        assertThat(urls).contains(REPLICA1_URL, REPLICA2_URL);
+        assertThat(urlIn(false)).isEqualTo(PRIMARY_URL);
+    }
+
+    @Test
+    public void readAfterWriteStaysOnPrimary() throws Exception{
+        //given
+        setUp(60_000, PRIMARY_URL, REPLICA1_URL);
+
+        //when
+        String beforeWrite = urlIn(true);
+        urlIn(false);
+        String afterWrite = urlIn(true);
+
+        //then
+        assertThat(beforeWrite).isEqualTo(REPLICA1_URL);
+        assertThat(afterWrite).isEqualTo(PRIMARY_URL);
+    }
+
+    //다른 스레드(클라이언트)의 쓰기는 이 스레드의 읽기를 primary로 묶지 않는다.
+    @Test
+    public void writeFromOtherClientDoesNotPinReads() throws Exception{
+        //given
+        setUp(60_000, PRIMARY_URL, REPLICA1_URL);
+
+        //when
+        Thread writer = new Thread(() -> urlIn(false));
+        writer.start();
+        writer.join();
+
+        //then
+        assertThat(urlIn(true)).isEqualTo(REPLICA1_URL);
+    }
+
+    @Test
+    public void stickyCookieFollowsWritingClient() throws Exception{
+        //given
+        setUp(60_000, PRIMARY_URL, REPLICA1_URL);
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+
+        //when
+        inRequest(new MockHttpServletRequest(), writeResponse, () -> urlIn(false));
+        Cookie sticky = writeResponse.getCookie(ReplicaRoutingDataSource.STICKY_COOKIE);
+        MockHttpServletRequest sameClient = new MockHttpServletRequest();
+        sameClient.setCookies(sticky);
+        String sameClientRead = inRequest(sameClient, new MockHttpServletResponse(), () -> urlIn(true));
+        String otherClientRead = inRequest(new MockHttpServletRequest(), new MockHttpServletResponse(), () -> urlIn(true));
+
+        //then
+        assertThat(sticky).isNotNull();
+        assertThat(sameClientRead).isEqualTo(PRIMARY_URL);
+        assertThat(otherClientRead).isEqualTo(REPLICA1_URL);
+    }
+
+    @Test
+    public void unhealthyReplicaIsSkipped() throws Exception{
+        //given
+        setUp(0, PRIMARY_URL, "jdbc:h2:tcp://localhost:1/~/none", REPLICA1_URL);
+
+        //when
+        routing.checkReplicas();
+
+        //then
+        for (int i = 0; i < 4; i++) {
+            assertThat(urlIn(true)).isEqualTo(REPLICA1_URL);
+        }
+    }
+
+    private void setUp(long stickyPrimaryMillis, String primaryUrl, String... replicaUrls) {
+        ReplicationProperties properties = new ReplicationProperties();
+        properties.setStickyPrimaryMillis(stickyPrimaryMillis);
+        properties.setHealthCheckIntervalMillis(60_000);
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            replicas.add(h2(url));
+        }
+        routing = new ReplicaRoutingDataSource(h2(primaryUrl), replicas, properties);
+        routing.afterPropertiesSet();
+        dataSource = new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private String urlIn(boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> {
+            try {
+                return DataSourceUtils.getConnection(dataSource).getMetaData().getURL();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static String inRequest(MockHttpServletRequest request, MockHttpServletResponse response,
+                                    Supplier<String> action) {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        try {
+            return action.get();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private static DataSource h2(String url) {
+        return new SimpleDriverDataSource(new Driver(), url, "sa", "");
+    }
+}
@@ -0,0 +1,193 @@
+package study.querydsl.config;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.List;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class SubQueryOptimizerTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    SubQueryOptimizer subQueryOptimizer;
+    QMember memberSub = new QMember("memberSub");
+
+    @BeforeEach
+    public void beforeEach(){
+        Team teamA = new Team("subQueryTeamA");
+        Team teamB = new Team("subQueryTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    //평균보다 나이가 많은 맴버, avg는 한 번 먼저 계산된다.
+    @Test
+    public void greaterThanAvg() throws Exception{
+        //given
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.age.goe(
+                        select(memberSub.age.avg())
+                                .from(memberSub)));
+        //when
+        JPAQuery<Member> optimized = subQueryOptimizer.optimize(query);
+        //then
+        assertThat(optimized.toString()).doesNotContain("(select");
+        assertSameResult(query, optimized);
+    }
+
+    @Test
+    public void maxAgeCondition() throws Exception{
+        //given
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.age.eq(
+                        select(memberSub.age.max())
+                                .from(memberSub)));
+        //when
+        JPAQuery<Member> optimized = subQueryOptimizer.optimize(query);
+        //then
+        assertThat(optimized.toString()).doesNotContain("(select");
+        assertSameResult(query, optimized);
+    }
+
+    //in 서브쿼리 -> semi join, age는 중복될 수 있으므로 distinct가 붙는다.
+    @Test
+    public void ageInCondition() throws Exception{
+        //given
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.age.in(
+                        select(memberSub.age)
+                                .from(memberSub)
+                                .where(memberSub.age.gt(20))));
+        //when
+        JPAQuery<Member> optimized = subQueryOptimizer.optimize(query);
+        //then
+        assertThat(optimized.toString()).doesNotContain("(select");
+        assertThat(optimized.getMetadata().isDistinct()).isTrue();
+        assertSameResult(query, optimized);
+    }
+
+    //id로 semi join하면 행이 늘지 않으므로 distinct가 필요 없다.
+    @Test
+    public void teamIdInCondition() throws Exception{
+        //given
+        QTeam teamSub = new QTeam("teamSub");
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.team.id.in(
+                        select(teamSub.id)
+                                .from(teamSub)
+                                .where(teamSub.name.eq("subQueryTeamA"))));
+        //when
+        JPAQuery<Member> optimized = subQueryOptimizer.optimize(query);
+        //then
+        assertThat(optimized.toString()).doesNotContain("(select");
+        assertThat(optimized.getMetadata().isDistinct()).isFalse();
+        assertSameResult(query, optimized);
+    }
+
+    //상관 서브쿼리와 OR 안의 in은 그대로 둔다.
+    @Test
+    public void correlatedAndOrAreKept() throws Exception{
+        //given
+        JPAQuery<Member> correlated = queryFactory
+                .selectFrom(member)
+                .where(member.age.eq(
+                        select(memberSub.age.max())
+                                .from(memberSub)
+                                .where(memberSub.team.eq(member.team))));
+        JPAQuery<Member> or = queryFactory
+                .selectFrom(member)
+                .where(member.age.in(
+                        select(memberSub.age)
+                                .from(memberSub)
+                                .where(memberSub.age.gt(20)))
+                        .or(member.username.eq("member1")));
+        //when
+        JPAQuery<Member> optimizedCorrelated = subQueryOptimizer.optimize(correlated);
+        JPAQuery<Member> optimizedOr = subQueryOptimizer.optimize(or);
+        //then
+        assertThat(optimizedCorrelated.toString()).contains("(select");
+        assertThat(optimizedOr.toString()).contains("(select");
+        assertSameResult(correlated, optimizedCorrelated);
+        assertSameResult(or, optimizedOr);
+    }
+
+    //lock mode, hint는 유지되고 lock이 있으면 in 서브쿼리를 join으로 바꾸지 않는다.
+    @Test
+    public void keepsLockModeAndHints() throws Exception{
+        //given
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.age.in(
+                        select(memberSub.age)
+                                .from(memberSub)
+                                .where(memberSub.age.gt(20))))
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(QueryHints.HINT_READONLY, true);
+        //when
+        JPAQuery<Member> optimized = subQueryOptimizer.optimize(query);
+        List<Member> result = optimized.fetch();
+        //then
+        assertThat(optimized.toString()).contains("(select");
+        assertThat(result).isNotEmpty();
+        assertThat(result).allMatch(m -> em.getLockMode(m) == LockModeType.PESSIMISTIC_WRITE);
+        assertThat(result).allMatch(m -> em.unwrap(Session.class).isReadOnly(m));
+    }
+
+    //root 밖의 경로로 정렬하면 distinct를 붙일 수 없으므로 semi join 하지 않는다.
+    @Test
+    public void orderByJoinedPathIsKept() throws Exception{
+        //given
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.age.in(
+                        select(memberSub.age)
+                                .from(memberSub)
+                                .where(memberSub.age.gt(20))))
+                .orderBy(member.team.name.asc());
+        //when
+        JPAQuery<Member> optimized = subQueryOptimizer.optimize(query);
+        //then
+        assertThat(optimized.toString()).contains("(select");
+        assertThat(optimized.getMetadata().isDistinct()).isFalse();
+        assertSameResult(query, optimized);
+    }
+
+    private void assertSameResult(JPAQuery<Member> query, JPAQuery<Member> optimized) {
+        List<Member> expected = query.fetch();
+        List<Member> actual = optimized.fetch();
+        assertThat(actual).extracting("id")
+                .containsExactlyInAnyOrderElementsOf(expected.stream().map(Member::getId).toList());
+    }
+}
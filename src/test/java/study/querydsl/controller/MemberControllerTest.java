@@ -0,0 +1,67 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.Repository.MemberJpaRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberControllerTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberController memberController;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void beforeEach(){
+        Team exportTeam = new Team("exportTeam");
+        em.persist(exportTeam);
+        em.persist(new Member("export1", 10, exportTeam));
+        em.persist(new Member("export2", 20, exportTeam));
+        em.persist(new Member("export3", 30, exportTeam));
+    }
+
+    //한 줄에 JSON 하나, 구분자 공백 없이 줄마다 개행으로 끝난다.
+    @Test
+    public void exportNdjson() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("exportTeam");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        memberController.exportMemberV1(condition).getBody().writeTo(out);
+
+        //then
+        String body = out.toString(StandardCharsets.UTF_8);
+        String[] expected = memberJpaRepository.searchByExpression(condition).stream()
+                .map(dto -> {
+                    try {
+                        return objectMapper.writeValueAsString(dto);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toArray(String[]::new);
+        assertThat(body).endsWith("\n");
+        assertThat(body.split("\n")).hasSize(3).containsExactlyInAnyOrder(expected);
+    }
+}
@@ -0,0 +1,84 @@
+package study.querydsl.entity.listener;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class AuditListenerTest {
+
+    @Autowired EntityManager em;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired AuditClock auditClock;
+
+    @BeforeEach
+    public void beforeEach(){
+        Team teamA = new Team("auditTeam");
+        em.persist(teamA);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("audit" + i, i, teamA));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void persistStampsOncePerTransaction() throws Exception{
+        //when
+        List<Member> members = auditMembers();
+
+        //then
+        LocalDateTime now = auditClock.current().getNow();
+        assertThat(members).hasSize(10);
+        assertThat(members).extracting(Member::getCreatedTime).containsOnly(now);
+        assertThat(members).extracting(Member::getLastModifiedTime).containsOnly(now);
+    }
+
+    @Test
+    public void bulkUpdateStampsLastModifiedTime() throws Exception{
+        //given
+        LocalDateTime past = LocalDateTime.of(2000, 1, 1, 0, 0);
+        queryFactory
+                .update(member)
+                .set(member.lastModifiedTime, past)
+                .where(member.username.startsWith("audit"))
+                .execute();
+        em.clear();
+        assertThat(auditMembers()).extracting(Member::getLastModifiedTime).containsOnly(past);
+        em.clear();
+
+        //when
+        queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.startsWith("audit"))
+                .execute();
+        em.clear();
+
+        //then
+        assertThat(auditMembers()).extracting(Member::getLastModifiedTime)
+                .containsOnly(auditClock.current().getNow());
+    }
+
+    private List<Member> auditMembers() {
+        return queryFactory
+                .selectFrom(member)
+                .join(member.team, team)
+                .where(team.name.eq("auditTeam"))
+                .fetch();
+    }
+}
@@ -0,0 +1,83 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class IdBlockAllocatorTest {
+
+    @Autowired EntityManager em;
+    @Autowired IdBlockAllocator idBlockAllocator;
+
+    @Test
+    public void reserveDoesNotOverlapHibernateIds() throws Exception{
+        //given
+        Team team = new Team("idBlockTeam");
+        em.persist(team);
+        Set<Long> hibernateIds = ConcurrentHashMap.newKeySet();
+        Set<Long> reservedIds = ConcurrentHashMap.newKeySet();
+
+        //when
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < Member.ID_ALLOCATION_SIZE; j++) {
+                Member member = new Member("idBlock" + j, j, team);
+                em.persist(member);
+                hibernateIds.add(member.getId());
+            }
+            IdBlockAllocator.IdBlock block = idBlockAllocator.reserve(Member.class);
+            for (long id = block.getFirst(); id < block.getFirst() + block.getSize(); id++) {
+                reservedIds.add(id);
+            }
+        }
+
+        //then
+        assertThat(idBlockAllocator.blockSize(Member.class)).isEqualTo(Member.ID_ALLOCATION_SIZE);
+        assertThat(reservedIds).hasSize(3 * Member.ID_ALLOCATION_SIZE);
+        assertThat(reservedIds).doesNotContainAnyElementsOf(hibernateIds);
+    }
+
+    @Test
+    public void nextIsUniqueAcrossThreads() throws Exception{
+        //given
+        int threads = 8;
+        int perThread = 500;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        //when
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(idBlockAllocator.next(Member.class));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        //then
+        assertThat(ids).hasSize(threads * perThread);
+    }
+}
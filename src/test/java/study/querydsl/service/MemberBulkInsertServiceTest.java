@@ -0,0 +1,122 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberImportDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.listener.EntityChangedEvent;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.listener.EntityChangedEvent.ChangeType.BULK_UPDATE;
+
+//청크마다 새 트랜잭션으로 커밋되므로 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+@SpringBootTest
+@RecordApplicationEvents
+class MemberBulkInsertServiceTest {
+
+    static final String AUDITOR = "importer";
+    static final List<String> TEAMS = List.of("bulkTeamA", "bulkTeamB");
+
+    @TestConfiguration
+    static class AuditorConfig {
+        @Bean
+        AuditorAware<String> auditorAware() {
+            return () -> Optional.of(AUDITOR);
+        }
+    }
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate tx;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired MemberBulkInsertService memberBulkInsertService;
+    @Autowired ApplicationEvents events;
+
+    @AfterEach
+    public void afterEach(){
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.team.id.in(teamIds())).execute();
+            queryFactory.delete(team).where(team.name.in(TEAMS)).execute();
+        });
+    }
+
+    @Test
+    public void importMembers() throws Exception{
+        //when
+        long count = memberBulkInsertService.importMembers(records(2500));
+        //then
+        assertThat(count).isEqualTo(2500);
+        assertThat(countMembers("bulkTeamA")).isEqualTo(1250);
+    }
+
+    @Test
+    public void importMembersJdbc() throws Exception{
+        //when
+        long count = memberBulkInsertService.importMembersJdbc(records(2530));
+        //then
+        assertThat(count).isEqualTo(2530);
+        assertThat(countMembers("bulkTeamB")).isEqualTo(1265);
+        //jdbc 경로도 작업자를 남긴다.
+        assertThat(queryFactory
+                .select(member.count())
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("bulkTeamB"),
+                        member.createdBy.eq(AUDITOR),
+                        member.lastModifiedBy.eq(AUDITOR))
+                .fetchOne()).isEqualTo(1265);
+        //캐시 등이 jdbc insert를 알 수 있도록 벌크 이벤트가 발행된다.
+        assertThat(events.stream(EntityChangedEvent.class))
+                .anyMatch(e -> e.getEntityType() == Member.class && e.getChangeType() == BULK_UPDATE);
+        //jdbc로 넣은 id와 hibernate가 발급하는 id가 겹치지 않아야 한다.
+        memberBulkInsertService.importMembers(records(10));
+        assertThat(queryFactory.select(member.id.countDistinct()).from(member).fetchOne())
+                .isEqualTo(queryFactory.select(member.count()).from(member).fetchOne());
+    }
+
+    @Test
+    public void rejectWriteTransaction() throws Exception{
+        //when //then
+        tx.executeWithoutResult(status -> assertThatThrownBy(() -> memberBulkInsertService.importMembers(records(10)))
+                .isInstanceOf(IllegalStateException.class));
+        assertThat(countMembers("bulkTeamA")).isEqualTo(0);
+    }
+
+    private List<Long> teamIds() {
+        return queryFactory.select(team.id).from(team).where(team.name.in(TEAMS)).fetch();
+    }
+
+    private Stream<MemberImportDTO> records(int size) {
+        return IntStream.range(0, size)
+                .mapToObj(i -> new MemberImportDTO("bulk" + i, i % 100, i % 2 == 0 ? "bulkTeamA" : "bulkTeamB"));
+    }
+
+    private Long countMembers(String teamName) {
+        return queryFactory
+                .select(member.count())
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq(teamName))
+                .fetchOne();
+    }
+}
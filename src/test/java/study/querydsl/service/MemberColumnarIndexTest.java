@@ -0,0 +1,177 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.Repository.MemberJpaRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+//커밋 후 이벤트로 갱신되므로 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+@SpringBootTest(properties = "querydsl.columnar-index.enabled=true")
+class MemberColumnarIndexTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate tx;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MemberColumnarIndex memberColumnarIndex;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    public void beforeEach(){
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("columnarTeamA");
+            Team teamB = new Team("columnarTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("columnar1", 10, teamA));
+            em.persist(new Member("columnar2", 20, teamA));
+            em.persist(new Member("columnar3", 30, teamB));
+            em.persist(new Member("columnar4", 40, teamB));
+            em.persist(new Member("columnar5", 50));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+        memberColumnarIndex.reload();
+    }
+
+    @AfterEach
+    public void afterEach(){
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("columnar")).execute();
+            queryFactory.delete(team).where(team.id.in(teamAId, teamBId)).execute();
+        });
+    }
+
+    @Test
+    public void searchMatchesJpa() throws Exception{
+        //then
+        assertThat(memberColumnarIndex.isStale()).isFalse();
+        assertSameAsJpa(condition(null, null, null, null));
+        assertSameAsJpa(condition("columnar3", null, null, null));
+        assertSameAsJpa(condition(null, "columnarTeamA", null, null));
+        assertSameAsJpa(condition(null, null, 20, 40));
+        assertSameAsJpa(condition("columnar2", "columnarTeamA", 15, 25));
+        assertSameAsJpa(condition(null, "noSuchTeam", null, null));
+    }
+
+    @Test
+    public void incrementalChanges() throws Exception{
+        //when
+        tx.executeWithoutResult(status -> {
+            Member moving = queryFactory.selectFrom(member).where(member.username.eq("columnar1")).fetchOne();
+            moving.changeTeam(em.find(Team.class, teamBId));
+            queryFactory.selectFrom(member).where(member.username.eq("columnar2")).fetchOne()
+                    .changeUsername("columnarRenamed");
+            em.remove(queryFactory.selectFrom(member).where(member.username.eq("columnar3")).fetchOne());
+            em.persist(new Member("columnar6", 60, em.find(Team.class, teamAId)));
+        });
+
+        //then
+        assertThat(memberColumnarIndex.isStale()).isFalse();
+        assertSameAsJpa(condition(null, "columnarTeamB", null, null));
+        assertSameAsJpa(condition(null, "columnarTeamA", null, null));
+        assertSameAsJpa(condition("columnarRenamed", null, null, null));
+        assertThat(memberColumnarIndex.search(condition("columnar2", null, null, null))).isEmpty();
+        assertThat(memberColumnarIndex.search(condition("columnar3", null, null, null))).isEmpty();
+    }
+
+    //벌크 연산 후에는 다시 적재될 때까지 JPA로 조회한다.
+    @Test
+    public void bulkUpdateFallsBackToJpa() throws Exception{
+        //given 재적재가 바로 실행되지 않도록 적재 스레드를 막아 둔다.
+        CountDownLatch release = new CountDownLatch(1);
+        memberColumnarIndex.reloadExecutor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        //when
+        tx.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(100))
+                .where(member.username.startsWith("columnar"))
+                .execute());
+
+        //then
+        assertThat(memberColumnarIndex.isStale()).isTrue();
+        AtomicBoolean fallback = new AtomicBoolean();
+        MemberSearchCondition condition = condition(null, null, 100, null);
+        assertThat(memberColumnarIndex.search(condition, c -> {
+            fallback.set(true);
+            return memberJpaRepository.searchByExpression(c);
+        })).hasSize(5);
+        assertThat(fallback).isTrue();
+
+        release.countDown();
+        awaitFresh();
+        assertSameAsJpa(condition);
+    }
+
+    //이벤트 없이 DB가 바뀌면 버전 비교로 찾아서 다시 적재한다.
+    @Test
+    public void externalWriteIsDetected() throws Exception{
+        //given
+        memberColumnarIndex.checkVersion();
+        assertThat(memberColumnarIndex.isStale()).isFalse();
+
+        //when 다른 노드의 변경처럼 이벤트 없이 JDBC로 수정
+        jdbcTemplate.update("update member set age = age + 100, last_modified_time = ? where username like 'columnar%'",
+                LocalDateTime.now().plusSeconds(1));
+        memberColumnarIndex.checkVersion();
+
+        //then
+        assertThat(memberColumnarIndex.isStale()).isTrue();
+        awaitFresh();
+        assertSameAsJpa(condition(null, null, 100, null));
+    }
+
+    private void awaitFresh() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (memberColumnarIndex.isStale() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(memberColumnarIndex.isStale()).isFalse();
+    }
+
+    private void assertSameAsJpa(MemberSearchCondition condition) {
+        assertThat(memberColumnarIndex.search(condition))
+                .containsExactlyInAnyOrderElementsOf(memberJpaRepository.searchByExpression(condition));
+    }
+
+    private static MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
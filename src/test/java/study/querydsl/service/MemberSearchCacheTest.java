@@ -0,0 +1,91 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.listener.AfterCommitOnce;
+import study.querydsl.entity.listener.EntityChangedEvent;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//트랜잭션 밖에서 발행한 이벤트는 바로 처리된다(fallbackExecution)
+@SpringBootTest
+class MemberSearchCacheTest {
+
+    @Autowired MemberSearchCache memberSearchCache;
+    @Autowired ApplicationEventPublisher publisher;
+    @Autowired TransactionTemplate tx;
+    AtomicInteger loadCount = new AtomicInteger();
+    Function<MemberSearchCondition, List<MemberTeamDTO>> loader = condition -> {
+        loadCount.incrementAndGet();
+        return List.of(new MemberTeamDTO(1L, "member1", 10, 1L, condition.getTeamName()));
+    };
+
+    @BeforeEach
+    public void beforeEach(){
+        memberSearchCache.invalidateAll();
+    }
+
+    @Test
+    public void normalizedConditionHitsCache() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        MemberSearchCondition blankUsername = new MemberSearchCondition();
+        blankUsername.setTeamName("teamA");
+        blankUsername.setUsername(" ");
+        //when
+        memberSearchCache.get(condition, loader);
+        List<MemberTeamDTO> result = memberSearchCache.get(blankUsername, loader);
+        //then
+        assertThat(loadCount.get()).isEqualTo(1);
+        assertThat(result).extracting("teamName").containsExactly("teamA");
+    }
+
+    @Test
+    public void entityChangeInvalidates() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        memberSearchCache.get(condition, loader);
+        //when
+        publisher.publishEvent(new EntityChangedEvent(Team.class, null, EntityChangedEvent.ChangeType.BULK_UPDATE));
+        memberSearchCache.get(condition, loader);
+        //then
+        assertThat(loadCount.get()).isEqualTo(2);
+    }
+
+    //엔티티 변경이 많아도 트랜잭션당 synchronization은 캐시마다 하나, 커밋 후 한 번 비운다.
+    @Test
+    public void invalidatesOncePerTransaction() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        memberSearchCache.get(condition, loader);
+        //when
+        long registered = tx.execute(status -> {
+            for (int i = 0; i < 50; i++) {
+                publisher.publishEvent(new EntityChangedEvent(Member.class, null, EntityChangedEvent.ChangeType.PERSIST));
+            }
+            //커밋 전에는 그대로
+            memberSearchCache.get(condition, loader);
+            return TransactionSynchronizationManager.getSynchronizations().stream()
+                    .filter(s -> s instanceof AfterCommitOnce)
+                    .count();
+        });
+        memberSearchCache.get(condition, loader);
+        //then
+        assertThat(registered).isEqualTo(2);
+        assertThat(loadCount.get()).isEqualTo(2);
+    }
+}
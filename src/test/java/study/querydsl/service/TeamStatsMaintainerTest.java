@@ -0,0 +1,136 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.Repository.TeamStatsRepository;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TeamStats;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+//통계는 커밋 직전에 반영되므로 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+@SpringBootTest
+class TeamStatsMaintainerTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate tx;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+    @Autowired
+    TeamStatsMaintainer teamStatsMaintainer;
+    Long teamAId;
+    Long teamBId;
+    Long movingMemberId;
+
+    @BeforeEach
+    public void beforeEach(){
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("statsTeamA");
+            Team teamB = new Team("statsTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member moving = new Member("statsMember2", 20, teamA);
+            em.persist(new Member("statsMember1", 10, teamA));
+            em.persist(moving);
+            em.persist(new Member("statsMember3", 30, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+            movingMemberId = moving.getId();
+        });
+    }
+
+    @AfterEach
+    public void afterEach(){
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.team.id.in(teamAId, teamBId)).execute();
+            queryFactory.delete(team).where(team.id.in(teamAId, teamBId)).execute();
+            jdbcTemplate.update("delete from team_stats where team_id in (?, ?)", teamAId, teamBId);
+        });
+    }
+
+    @Test
+    public void insertUpdatesStats() throws Exception{
+        //then
+        TeamStats statsA = teamStatsRepository.findByTeamName("statsTeamA").orElseThrow();
+        assertThat(statsA.getMemberCount()).isEqualTo(2);
+        assertThat(statsA.getAgeSum()).isEqualTo(30);
+        assertThat(statsA.getAgeMin()).isEqualTo(10);
+        assertThat(statsA.getAgeMax()).isEqualTo(20);
+        assertThat(statsA.getAgeAvg()).isEqualTo(15.0);
+    }
+
+    @Test
+    public void changeTeamAndDeleteUpdateStats() throws Exception{
+        //when
+        tx.executeWithoutResult(status -> {
+            Member moving = em.find(Member.class, movingMemberId);
+            moving.changeTeam(em.find(Team.class, teamBId));
+            em.remove(queryFactory.selectFrom(member).where(member.username.eq("statsMember3")).fetchOne());
+        });
+
+        //then
+        TeamStats statsA = teamStatsRepository.findByTeamId(teamAId).orElseThrow();
+        TeamStats statsB = teamStatsRepository.findByTeamId(teamBId).orElseThrow();
+        assertThat(statsA.getMemberCount()).isEqualTo(1);
+        assertThat(statsA.getAgeMax()).isEqualTo(10);
+        assertThat(statsB.getMemberCount()).isEqualTo(1);
+        assertThat(statsB.getAgeSum()).isEqualTo(20);
+        assertThat(statsB.getAgeMin()).isEqualTo(20);
+        assertThat(statsB.getAgeMax()).isEqualTo(20);
+    }
+
+    @Test
+    public void bulkUpdateReconcilesStats() throws Exception{
+        //when
+        tx.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.startsWith("statsMember"))
+                .execute());
+
+        //then 커밋 후 비동기로 재계산된다.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (teamStatsRepository.findByTeamId(teamAId).map(TeamStats::getAgeSum).orElse(0L) != 32
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        TeamStats statsA = teamStatsRepository.findByTeamId(teamAId).orElseThrow();
+        assertThat(statsA.getAgeSum()).isEqualTo(32);
+        assertThat(statsA.getAgeMin()).isEqualTo(11);
+    }
+
+    //전체 재계산은 기존 행을 덮어쓰고, 없어진 팀의 행만 지운다.
+    @Test
+    public void reconcileRebuildsInPlace() throws Exception{
+        //given
+        Long orphanTeamId = -teamAId;
+        jdbcTemplate.update("update team_stats set member_count = 99, age_sum = 0 where team_id = ?", teamAId);
+        jdbcTemplate.update("insert into team_stats (team_id, member_count, age_sum) values (?, 1, 1)", orphanTeamId);
+
+        //when
+        teamStatsMaintainer.reconcile();
+
+        //then
+        TeamStats statsA = teamStatsRepository.findByTeamId(teamAId).orElseThrow();
+        assertThat(statsA.getMemberCount()).isEqualTo(2);
+        assertThat(statsA.getAgeSum()).isEqualTo(30);
+        assertThat(teamStatsRepository.findByTeamId(orphanTeamId)).isEmpty();
+    }
+}
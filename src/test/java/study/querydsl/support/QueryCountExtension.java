@@ -0,0 +1,67 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import study.querydsl.config.QueryCounter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 테스트 메서드에서 실행된 select 수를 검사한다. @BeforeEach의 데이터 준비 쿼리는 포함하지 않는다.
+ *
+ * @ExtendWith(QueryCountExtension.class) 를 @SpringBootTest 뒤에 선언하고
+ * 테스트 안에서 QueryCountExtension.assertMaxQueries(n) 으로 확인한다.
+ */
+public class QueryCountExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ThreadLocal<State> STATE = new ThreadLocal<>();
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        QueryCounter queryCounter = SpringExtension.getApplicationContext(context).getBean(QueryCounter.class);
+        STATE.set(new State(queryCounter));
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        STATE.remove();
+    }
+
+    //지금부터 다시 센다.
+    public static void reset() {
+        state().reset();
+    }
+
+    public static long selectCount() {
+        State state = state();
+        return state.queryCounter.snapshot().getSelects() - state.baseline;
+    }
+
+    public static void assertMaxQueries(long max) {
+        assertThat(selectCount()).as("select query count").isLessThanOrEqualTo(max);
+    }
+
+    private static State state() {
+        State state = STATE.get();
+        if (state == null) {
+            throw new IllegalStateException("QueryCountExtension is not registered on this test");
+        }
+        return state;
+    }
+
+    private static class State {
+        private final QueryCounter queryCounter;
+        private long baseline;
+
+        private State(QueryCounter queryCounter) {
+            this.queryCounter = queryCounter;
+            reset();
+        }
+
+        private void reset() {
+            baseline = queryCounter.snapshot().getSelects();
+        }
+    }
+}